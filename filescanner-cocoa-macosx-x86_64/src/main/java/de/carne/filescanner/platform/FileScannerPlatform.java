@@ -16,6 +16,9 @@
  */
 package de.carne.filescanner.platform;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 import org.eclipse.swt.internal.cocoa.NSBundle;
 import org.eclipse.swt.internal.cocoa.NSDictionary;
 import org.eclipse.swt.internal.cocoa.NSMutableDictionary;
@@ -74,4 +77,13 @@ public final class FileScannerPlatform {
 		return height * 0.75f;
 	}
 
+	/**
+	 * Gets the platform specific base directory for user specific cache data.
+	 *
+	 * @return the platform specific base directory for user specific cache data.
+	 */
+	public static Path cacheDir() {
+		return Paths.get(System.getProperty("user.home"), "Library", "Caches");
+	}
+
 }
@@ -20,7 +20,6 @@ import java.io.IOException;
 import java.util.Optional;
 import java.util.SortedMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jdt.annotation.Nullable;
@@ -29,6 +28,7 @@ import org.eclipse.swt.widgets.Shell;
 
 import de.carne.boot.ApplicationMain;
 import de.carne.filescanner.platform.FileScannerPlatform;
+import de.carne.filescanner.swt.batch.BatchScanner;
 import de.carne.filescanner.swt.main.MainUI;
 import de.carne.swt.UserApplication;
 import de.carne.swt.graphics.ResourceException;
@@ -56,7 +56,8 @@ public class FileScannerMain extends UserApplication implements ApplicationMain
 	private static final String NAME = "filescanner";
 
 	private final Late<MainUI> mainInterfaceHolder = new Late<>();
-	private final Lazy<ExecutorService> cachedThreadPoolHolder = new Lazy<>(Executors::newCachedThreadPool);
+	private final Lazy<ExecutorService> cachedThreadPoolHolder = new Lazy<>(
+			() -> TaskExecutors.newCachedExecutor("cached"));
 
 	@Override
 	public String name() {
@@ -78,11 +79,15 @@ public class FileScannerMain extends UserApplication implements ApplicationMain
 
 			logRuntimeInfo();
 
-			Thread.currentThread().setPriority(Thread.NORM_PRIORITY + 1);
+			if (BatchScanner.isBatchMode(args)) {
+				status = new BatchScanner(name()).run(args);
+			} else {
+				Thread.currentThread().setPriority(Thread.NORM_PRIORITY + 1);
 
-			CmdLineProcessor applicationCmdLine = buildApplicationCmdLine(args);
+				CmdLineProcessor applicationCmdLine = buildApplicationCmdLine(args);
 
-			status = run(applicationCmdLine);
+				status = run(applicationCmdLine);
+			}
 			shutdownCachedThreaddPool();
 		} catch (InterruptedException e) {
 			Thread.currentThread().interrupt();
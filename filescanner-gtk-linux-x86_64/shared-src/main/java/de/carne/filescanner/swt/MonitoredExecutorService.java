@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.filescanner.swt;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import de.carne.util.logging.Log;
+
+/**
+ * {@linkplain ExecutorService} wrapper recording task statistics.
+ * <p>
+ * Besides the number of executed tasks and the peak number of concurrently running tasks (and therefore threads), the
+ * time tasks are waiting for a thread and the time they are running are recorded. As most background tasks are
+ * blocking pipelines (e.g. pipes or I/O), the latter is mostly blocking time. The statistics are logged as soon as
+ * the executor has been shut down and all of its tasks have finished.
+ */
+final class MonitoredExecutorService extends AbstractExecutorService {
+
+	private static final Log LOG = new Log();
+
+	private final String name;
+	private final boolean virtual;
+	private final ExecutorService executor;
+	private final LongAdder taskCount = new LongAdder();
+	private final AtomicInteger activeCount = new AtomicInteger();
+	private final AtomicInteger pendingCount = new AtomicInteger();
+	private final AtomicInteger peakActiveCount = new AtomicInteger();
+	private final LongAdder waitNanos = new LongAdder();
+	private final LongAdder runNanos = new LongAdder();
+	private final AtomicBoolean statsLogged = new AtomicBoolean(false);
+
+	MonitoredExecutorService(String name, boolean virtual, ExecutorService executor) {
+		this.name = name;
+		this.virtual = virtual;
+		this.executor = executor;
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		long submitNanos = System.nanoTime();
+
+		this.pendingCount.incrementAndGet();
+		try {
+			this.executor.execute(() -> runTask(command, submitNanos));
+		} catch (RuntimeException e) {
+			taskDone(1);
+			throw e;
+		}
+	}
+
+	private void runTask(Runnable command, long submitNanos) {
+		long startNanos = System.nanoTime();
+		int active = this.activeCount.incrementAndGet();
+
+		this.taskCount.increment();
+		this.peakActiveCount.accumulateAndGet(active, Math::max);
+		this.waitNanos.add(startNanos - submitNanos);
+		try {
+			command.run();
+		} finally {
+			this.runNanos.add(System.nanoTime() - startNanos);
+			this.activeCount.decrementAndGet();
+			taskDone(1);
+		}
+	}
+
+	private void taskDone(int count) {
+		// Whoever comes last (the final task or the shutdown call) logs the statistics
+		if (this.pendingCount.addAndGet(-count) == 0 && this.executor.isShutdown()) {
+			logStats();
+		}
+	}
+
+	@Override
+	public void shutdown() {
+		this.executor.shutdown();
+		taskDone(0);
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		List<Runnable> pending = this.executor.shutdownNow();
+
+		// The returned tasks will never run
+		taskDone(pending.size());
+		return pending;
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return this.executor.isShutdown();
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return this.executor.isTerminated();
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		boolean terminated = this.executor.awaitTermination(timeout, unit);
+
+		if (terminated) {
+			logStats();
+		}
+		return terminated;
+	}
+
+	private void logStats() {
+		if (this.statsLogged.compareAndSet(false, true)) {
+			LOG.info("Executor ''{0}'' ({1} threads): {2} tasks; peak: {3}; waiting: {4} ms; running/blocking: {5} ms",
+					this.name, (this.virtual ? "virtual" : "platform"), this.taskCount.sum(),
+					this.peakActiveCount.get(), TimeUnit.NANOSECONDS.toMillis(this.waitNanos.sum()),
+					TimeUnit.NANOSECONDS.toMillis(this.runNanos.sum()));
+		}
+	}
+
+	@Override
+	public String toString() {
+		return this.name;
+	}
+
+}
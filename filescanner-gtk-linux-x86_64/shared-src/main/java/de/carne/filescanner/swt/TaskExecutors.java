@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.filescanner.swt;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.carne.util.SystemProperties;
+import de.carne.util.logging.Log;
+
+/**
+ * Factory for the executors running the application's background tasks.
+ * <p>
+ * By default executors are backed by platform threads. If {@code TaskExecutors.virtualThreads} is set and the runtime
+ * supports virtual threads (Java 21+), cached executors are backed by virtual threads instead. Virtual threads are
+ * looked up via reflection, so the application keeps running on Java 11. All executors record task statistics, which
+ * are logged on shutdown.
+ */
+public final class TaskExecutors {
+
+	private static final Log LOG = new Log();
+
+	private static final boolean VIRTUAL_THREADS = SystemProperties.booleanValue(TaskExecutors.class,
+			".virtualThreads", false);
+
+	@Nullable
+	private static final ThreadFactory VIRTUAL_THREAD_FACTORY = (VIRTUAL_THREADS ? virtualThreadFactory() : null);
+
+	private TaskExecutors() {
+		// Prevent instantiation
+	}
+
+	/**
+	 * Checks whether executors are backed by virtual threads.
+	 *
+	 * @return {@code true} if executors are backed by virtual threads.
+	 */
+	public static boolean isVirtual() {
+		return VIRTUAL_THREAD_FACTORY != null;
+	}
+
+	/**
+	 * Creates a new executor running each task as soon as it is submitted.
+	 *
+	 * @param name the name of the executor (used for logging).
+	 * @return the created executor.
+	 */
+	public static ExecutorService newCachedExecutor(String name) {
+		ThreadFactory virtualThreadFactory = VIRTUAL_THREAD_FACTORY;
+		ExecutorService executor = null;
+		boolean virtual = false;
+
+		if (virtualThreadFactory != null) {
+			try {
+				executor = (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+						.invoke(null, virtualThreadFactory);
+				virtual = true;
+			} catch (ReflectiveOperationException e) {
+				LOG.warning(e, "Failed to create virtual thread executor; falling back to platform threads");
+			}
+		}
+		if (executor == null) {
+			executor = Executors.newCachedThreadPool();
+		}
+		return new MonitoredExecutorService(name, virtual, executor);
+	}
+
+	/**
+	 * Creates a new executor running at most the given number of tasks concurrently.
+	 *
+	 * @param name the name of the executor (used for logging).
+	 * @param threads the maximum number of concurrently running tasks.
+	 * @return the created executor.
+	 */
+	public static ExecutorService newFixedExecutor(String name, int threads) {
+		// Virtual threads are not meant to be pooled; always use platform threads for bounded executors
+		return new MonitoredExecutorService(name, false, Executors.newFixedThreadPool(threads));
+	}
+
+	@Nullable
+	private static ThreadFactory virtualThreadFactory() {
+		ThreadFactory threadFactory = null;
+
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+
+			builder = Class.forName("java.lang.Thread$Builder").getMethod("name", String.class, long.class)
+					.invoke(builder, "filescanner-virtual-", 0L);
+			threadFactory = (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory")
+					.invoke(builder);
+
+			LOG.info("Using virtual threads for background tasks");
+		} catch (NoSuchMethodException | ClassNotFoundException e) {
+			LOG.warning("Virtual threads are not supported by this runtime; using platform threads");
+		} catch (IllegalAccessException | InvocationTargetException e) {
+			LOG.warning(e, "Failed to setup virtual threads; using platform threads");
+		}
+		return threadFactory;
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.filescanner.swt.batch;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.carne.text.MemoryUnitFormat;
+import de.carne.util.SystemProperties;
+import de.carne.util.logging.Log;
+
+/**
+ * Aggregated progress of all files of a batch scan.
+ */
+class BatchProgress {
+
+	private static final Log LOG = new Log();
+
+	private static final long LOG_INTERVAL = SystemProperties.longValue(BatchProgress.class, ".logInterval", 5000);
+
+	private final int totalFiles;
+	private final long totalBytes;
+	private final long startNanos = System.nanoTime();
+	private final AtomicInteger finishedFiles = new AtomicInteger();
+	private final AtomicLong scannedBytes = new AtomicLong();
+	private final AtomicLong lastLogNanos = new AtomicLong(this.startNanos);
+
+	BatchProgress(int totalFiles, long totalBytes) {
+		this.totalFiles = totalFiles;
+		this.totalBytes = totalBytes;
+	}
+
+	/**
+	 * Records additionally scanned bytes.
+	 *
+	 * @param bytes the number of additionally scanned bytes.
+	 */
+	public void addScannedBytes(long bytes) {
+		this.scannedBytes.addAndGet(bytes);
+		maybeLogProgress();
+	}
+
+	/**
+	 * Records a finished file.
+	 */
+	public void fileFinished() {
+		this.finishedFiles.incrementAndGet();
+		maybeLogProgress();
+	}
+
+	private void maybeLogProgress() {
+		long now = System.nanoTime();
+		long lastLog = this.lastLogNanos.get();
+
+		if (TimeUnit.NANOSECONDS.toMillis(now - lastLog) >= LOG_INTERVAL
+				&& this.lastLogNanos.compareAndSet(lastLog, now)) {
+			logProgress(now);
+		}
+	}
+
+	/**
+	 * Logs the current progress.
+	 */
+	public void logProgress() {
+		logProgress(System.nanoTime());
+	}
+
+	private void logProgress(long now) {
+		if (LOG.isInfoLoggable()) {
+			long elapsedMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(now - this.startNanos), 1);
+			long currentScannedBytes = this.scannedBytes.get();
+			long scanRate = (currentScannedBytes * 1000) / elapsedMillis;
+			long remainingBytes = Math.max(this.totalBytes - currentScannedBytes, 0);
+			String eta = (scanRate > 0 ? formatSeconds(remainingBytes / scanRate) : "?");
+			MemoryUnitFormat memoryUnitFormat = MemoryUnitFormat.getMemoryUnitInstance();
+
+			LOG.info("Batch progress: {0}/{1} files; {2} of {3} scanned ({4}/s); elapsed: {5}; ETA: {6}",
+					this.finishedFiles.get(), this.totalFiles, memoryUnitFormat.format(currentScannedBytes),
+					memoryUnitFormat.format(this.totalBytes), memoryUnitFormat.format(scanRate),
+					formatSeconds(elapsedMillis / 1000), eta);
+		}
+	}
+
+	private static String formatSeconds(long seconds) {
+		return String.format("%d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+	}
+
+}
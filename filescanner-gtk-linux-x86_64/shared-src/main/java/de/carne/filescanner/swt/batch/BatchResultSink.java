@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.filescanner.swt.batch;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import de.carne.filescanner.engine.FileScannerResult;
+
+/**
+ * Sink receiving the result of each batch scanned file as soon as the file's scan has finished.
+ * <p>
+ * Files may be scanned concurrently; implementations must therefore be thread-safe.
+ */
+interface BatchResultSink {
+
+	/**
+	 * Accepts the result of a scanned file.
+	 *
+	 * @param file the scanned file.
+	 * @param result the file's root result.
+	 * @throws IOException if an I/O error occurs while processing the result.
+	 */
+	void accept(Path file, FileScannerResult result) throws IOException;
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.filescanner.swt.batch;
+
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.carne.filescanner.engine.FileScanner;
+import de.carne.filescanner.engine.FileScannerProgress;
+import de.carne.filescanner.engine.FileScannerResult;
+import de.carne.filescanner.engine.FileScannerStatus;
+import de.carne.util.logging.Log;
+
+/**
+ * {@linkplain FileScannerStatus} implementation tracking a single batch scan.
+ */
+class BatchScanStatus implements FileScannerStatus {
+
+	private static final Log LOG = new Log();
+
+	private final Path file;
+	private final long fileSize;
+	private final BatchProgress batchProgress;
+	private long reportedScannedBytes = 0;
+	private final CountDownLatch finished = new CountDownLatch(1);
+	private final AtomicInteger exceptionCount = new AtomicInteger();
+
+	BatchScanStatus(Path file, long fileSize, BatchProgress batchProgress) {
+		this.file = file;
+		this.fileSize = fileSize;
+		this.batchProgress = batchProgress;
+	}
+
+	/**
+	 * Waits for the scan to finish.
+	 *
+	 * @throws InterruptedException if the calling thread is interrupted while waiting.
+	 */
+	public void waitFinished() throws InterruptedException {
+		this.finished.await();
+	}
+
+	/**
+	 * Gets the number of exceptions reported during the scan.
+	 *
+	 * @return the number of exceptions reported during the scan.
+	 */
+	public int exceptionCount() {
+		return this.exceptionCount.get();
+	}
+
+	@Override
+	public void scanStarted(FileScanner scanner) {
+		LOG.info("Scanning file ''{0}''...", this.file);
+	}
+
+	@Override
+	public void scanFinished(FileScanner scanner) {
+		LOG.info("Finished scanning file ''{0}''", this.file);
+
+		reportScannedBytes(this.fileSize);
+		this.finished.countDown();
+	}
+
+	@Override
+	public void scanProgress(FileScanner scanner, FileScannerProgress progress) {
+		LOG.debug("Scanning file ''{0}'' ({1}%)", this.file, progress.scanProgress());
+
+		reportScannedBytes(progress.scannedBytes());
+	}
+
+	private synchronized void reportScannedBytes(long scannedBytes) {
+		// Nested inputs may cause more bytes to be scanned than the file contains; only count the file's bytes
+		long cappedScannedBytes = Math.min(scannedBytes, this.fileSize);
+
+		if (cappedScannedBytes > this.reportedScannedBytes) {
+			this.batchProgress.addScannedBytes(cappedScannedBytes - this.reportedScannedBytes);
+			this.reportedScannedBytes = cappedScannedBytes;
+		}
+	}
+
+	@Override
+	public void scanResult(FileScanner scanner, FileScannerResult result) {
+		// Results are written once the scan has finished
+	}
+
+	@Override
+	public void scanException(FileScanner scanner, Exception cause) {
+		LOG.warning(cause, "Scan of file ''{0}'' reported an exception", this.file);
+
+		this.exceptionCount.incrementAndGet();
+	}
+
+}
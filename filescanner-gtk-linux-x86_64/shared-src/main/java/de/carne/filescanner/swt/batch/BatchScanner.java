@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.filescanner.swt.batch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.carne.filescanner.engine.FileScanner;
+import de.carne.filescanner.engine.Formats;
+import de.carne.filescanner.engine.spi.Format;
+import de.carne.filescanner.swt.TaskExecutors;
+import de.carne.util.SystemProperties;
+import de.carne.util.cmdline.CmdLineException;
+import de.carne.util.cmdline.CmdLineProcessor;
+import de.carne.util.logging.Log;
+
+/**
+ * Headless batch scanner writing the scan results as JSON Lines.
+ * <p>
+ * Batch mode does not require a display and is selected via the {@value #SWITCH_BATCH} command line switch. Multiple
+ * files are scanned concurrently as long as the configured parallelism and memory budget permit. The results of each
+ * file are written as soon as its scan has finished.
+ */
+public final class BatchScanner {
+
+	private static final Log LOG = new Log();
+
+	private static final long MEMORY_BUDGET = SystemProperties.longValue(BatchScanner.class, ".memoryBudget", 1024);
+
+	/**
+	 * Memory (in MB) each scan is assumed to require regardless of the scanned file's size.
+	 */
+	private static final long SCAN_MEMORY_BASE = 32;
+
+	/**
+	 * Ratio between the scanned file's size and the additional memory a scan is assumed to require.
+	 */
+	private static final long SCAN_MEMORY_RATIO = 64;
+
+	private static final long MB = 1024 * 1024;
+
+	/**
+	 * Command line switch selecting batch mode.
+	 */
+	public static final String SWITCH_BATCH = "--batch";
+
+	/**
+	 * Exit status in case all files have been scanned without errors.
+	 */
+	public static final int STATUS_SUCCESS = 0;
+
+	/**
+	 * Exit status in case at least one file could not be scanned or caused scan exceptions.
+	 */
+	public static final int STATUS_SCAN_FAILURE = 1;
+
+	/**
+	 * Exit status in case batch mode could not be run at all.
+	 */
+	public static final int STATUS_FAILURE = -1;
+
+	private final String name;
+	private final List<Path> inputs = new ArrayList<>();
+	private final Formats formats = Formats.all();
+	@Nullable
+	private Path output = null;
+	private int parallelism = 1;
+	private long memoryBudget = MEMORY_BUDGET;
+	private boolean invalidArgs = false;
+
+	/**
+	 * Constructs a new {@linkplain BatchScanner} instance.
+	 *
+	 * @param name the application name to use for command line processing.
+	 */
+	public BatchScanner(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Checks whether the given command line selects batch mode.
+	 *
+	 * @param args the command line arguments to check.
+	 * @return {@code true} if the given command line selects batch mode.
+	 */
+	public static boolean isBatchMode(@Nullable String[] args) {
+		boolean batchMode = false;
+
+		for (@Nullable String arg : args) {
+			if (SWITCH_BATCH.equals(arg)) {
+				batchMode = true;
+				break;
+			}
+		}
+		return batchMode;
+	}
+
+	/**
+	 * Runs the batch scan.
+	 *
+	 * @param args the command line arguments to process.
+	 * @return the exit status.
+	 * @throws CmdLineException if the command line is invalid.
+	 * @throws InterruptedException if the calling thread is interrupted while scanning.
+	 */
+	public int run(@Nullable String[] args) throws CmdLineException, InterruptedException {
+		CmdLineProcessor cmdLine = buildCmdLine(args);
+
+		cmdLine.process();
+
+		int status;
+
+		if (this.invalidArgs) {
+			status = STATUS_FAILURE;
+		} else if (this.inputs.isEmpty()) {
+			LOG.error("No input files specified for batch scan");
+
+			status = STATUS_FAILURE;
+		} else {
+			try {
+				List<Path> files = collectFiles();
+
+				try (Writer out = openOutput()) {
+					status = scanFiles(files, this.formats.enabledFormats(), new JsonLinesResultWriter(out));
+				}
+			} catch (IOException e) {
+				LOG.error(e, "Batch scan failed");
+
+				status = STATUS_FAILURE;
+			}
+		}
+		return status;
+	}
+
+	private CmdLineProcessor buildCmdLine(@Nullable String[] args) {
+		CmdLineProcessor cmdLine = new CmdLineProcessor(this.name, args);
+
+		cmdLine.onSwitch(CmdLineProcessor::ignore).arg(SWITCH_BATCH);
+		cmdLine.onSwitch(CmdLineProcessor::ignore).arg("--verbose");
+		cmdLine.onSwitch(CmdLineProcessor::ignore).arg("--debug");
+		cmdLine.onOption((arg, value) -> this.output = Paths.get(value)).arg("--output");
+		cmdLine.onOption((arg, value) -> this.formats.disable(value)).arg("--disable-format");
+		cmdLine.onOption((arg, value) -> this.parallelism = (int) Math.min(parsePositive(arg, value), Integer.MAX_VALUE))
+				.arg("--parallel");
+		cmdLine.onOption((arg, value) -> this.memoryBudget = parsePositive(arg, value)).arg("--memory-budget");
+		cmdLine.onUnnamedOption(arg -> this.inputs.add(Paths.get(arg)));
+		cmdLine.onUnknownArg(this::logUnknownArg);
+		return cmdLine;
+	}
+
+	private void logUnknownArg(String arg) {
+		LOG.warning("Ignoring unknown command line argument ''{0}''", arg);
+	}
+
+	private long parsePositive(String arg, String value) {
+		long parsedValue;
+
+		try {
+			parsedValue = Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			parsedValue = 0;
+		}
+		if (parsedValue <= 0) {
+			LOG.error("Invalid value ''{1}'' for command line argument ''{0}''", arg, value);
+
+			this.invalidArgs = true;
+			parsedValue = 1;
+		}
+		return parsedValue;
+	}
+
+	private List<Path> collectFiles() throws IOException {
+		List<Path> files = new ArrayList<>();
+
+		for (Path input : this.inputs) {
+			if (Files.isDirectory(input)) {
+				try (Stream<Path> inputFiles = Files.walk(input)) {
+					files.addAll(inputFiles.filter(Files::isRegularFile).sorted().collect(Collectors.toList()));
+				}
+			} else {
+				files.add(input);
+			}
+		}
+		return files;
+	}
+
+	@SuppressWarnings("resource")
+	private Writer openOutput() throws IOException {
+		Path checkedOutput = this.output;
+		Writer out;
+
+		if (checkedOutput != null) {
+			LOG.info("Writing batch scan results to file ''{0}''...", checkedOutput);
+
+			out = Files.newBufferedWriter(checkedOutput, StandardCharsets.UTF_8);
+		} else {
+			// Do not close stdout; only flush it
+			out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)) {
+
+				@Override
+				public void close() throws IOException {
+					flush();
+				}
+
+			};
+		}
+		return out;
+	}
+
+	private int scanFiles(List<Path> files, Collection<Format> enabledFormats, BatchResultSink sink)
+			throws IOException, InterruptedException {
+		long[] fileSizes = new long[files.size()];
+		long totalBytes = 0;
+
+		for (int fileIndex = 0; fileIndex < fileSizes.length; fileIndex++) {
+			fileSizes[fileIndex] = fileSize(files.get(fileIndex));
+			totalBytes += fileSizes[fileIndex];
+		}
+
+		LOG.info("Batch scanning {0} files using parallelism {1} and memory budget {2} MB...", files.size(),
+				this.parallelism, this.memoryBudget);
+
+		int memoryPermits = (int) Math.min(this.memoryBudget, Integer.MAX_VALUE);
+		Semaphore memory = new Semaphore(memoryPermits);
+		BatchProgress progress = new BatchProgress(files.size(), totalBytes);
+		ExecutorService executor = TaskExecutors.newFixedExecutor("batch-scan", this.parallelism);
+		List<Future<Boolean>> scans = new ArrayList<>(files.size());
+		int status = STATUS_SUCCESS;
+
+		try {
+			for (int fileIndex = 0; fileIndex < fileSizes.length; fileIndex++) {
+				Path file = files.get(fileIndex);
+				long fileSize = fileSizes[fileIndex];
+				int scanPermits = (int) Math.min(SCAN_MEMORY_BASE + fileSize / (SCAN_MEMORY_RATIO * MB), memoryPermits);
+
+				// Admit the next scan only if it fits into the remaining memory budget
+				memory.acquire(scanPermits);
+				scans.add(executor.submit(() -> {
+					try {
+						return scanFile(file, fileSize, enabledFormats, sink, progress);
+					} finally {
+						memory.release(scanPermits);
+					}
+				}));
+			}
+			for (Future<Boolean> scan : scans) {
+				if (!scan.get().booleanValue()) {
+					status = STATUS_SCAN_FAILURE;
+				}
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+
+			throw (cause instanceof IOException ? (IOException) cause : new IOException(cause));
+		} finally {
+			executor.shutdownNow();
+		}
+		progress.logProgress();
+		return status;
+	}
+
+	private static long fileSize(Path file) {
+		long fileSize;
+
+		try {
+			fileSize = Files.size(file);
+		} catch (IOException e) {
+			// Reported once the file is scanned
+			fileSize = 0;
+		}
+		return fileSize;
+	}
+
+	private boolean scanFile(Path file, long fileSize, Collection<Format> enabledFormats, BatchResultSink sink,
+			BatchProgress progress) throws InterruptedException {
+		BatchScanStatus scanStatus = new BatchScanStatus(file, fileSize, progress);
+		boolean scanSucceeded;
+
+		try (FileScanner scanner = FileScanner.scan(file, enabledFormats, scanStatus)) {
+			scanStatus.waitFinished();
+			sink.accept(file, scanner.result());
+			scanSucceeded = scanStatus.exceptionCount() == 0;
+		} catch (IOException e) {
+			LOG.error(e, "Failed to scan file ''{0}''", file);
+
+			scanSucceeded = false;
+		} finally {
+			progress.fileFinished();
+		}
+		return scanSucceeded;
+	}
+
+}
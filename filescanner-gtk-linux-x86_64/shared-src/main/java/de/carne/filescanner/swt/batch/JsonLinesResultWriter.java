@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.filescanner.swt.batch;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+
+import de.carne.filescanner.engine.FileScannerResult;
+
+/**
+ * Writes a {@linkplain FileScannerResult} tree as JSON Lines (one JSON object per result).
+ */
+class JsonLinesResultWriter implements BatchResultSink {
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private final Writer out;
+	private final StringBuilder line = new StringBuilder();
+
+	JsonLinesResultWriter(Writer out) {
+		this.out = out;
+	}
+
+	@Override
+	public synchronized void accept(Path file, FileScannerResult result) throws IOException {
+		writeHelper(file.toString(), result, 0);
+		this.out.flush();
+	}
+
+	private void writeHelper(String file, FileScannerResult result, int level) throws IOException {
+		this.line.setLength(0);
+		this.line.append("{\"file\":");
+		appendString(file);
+		this.line.append(",\"level\":").append(level);
+		this.line.append(",\"name\":");
+		appendString(result.name());
+		this.line.append(",\"type\":\"").append(result.type().name()).append('"');
+		this.line.append(",\"start\":").append(result.start());
+		this.line.append(",\"end\":").append(result.end());
+		this.line.append(",\"key\":\"");
+		for (byte keyByte : result.key()) {
+			this.line.append(HEX_DIGITS[(keyByte >> 4) & 0xf]).append(HEX_DIGITS[keyByte & 0xf]);
+		}
+		this.line.append("\"}\n");
+		this.out.append(this.line);
+		for (FileScannerResult resultChild : result.children()) {
+			writeHelper(file, resultChild, level + 1);
+		}
+	}
+
+	private void appendString(String value) {
+		this.line.append('"');
+
+		int valueLength = value.length();
+
+		for (int valueIndex = 0; valueIndex < valueLength; valueIndex++) {
+			char c = value.charAt(valueIndex);
+
+			switch (c) {
+			case '"':
+				this.line.append("\\\"");
+				break;
+			case '\\':
+				this.line.append("\\\\");
+				break;
+			case '\n':
+				this.line.append("\\n");
+				break;
+			case '\r':
+				this.line.append("\\r");
+				break;
+			case '\t':
+				this.line.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					this.line.append("\\u00").append(HEX_DIGITS[(c >> 4) & 0xf]).append(HEX_DIGITS[c & 0xf]);
+				} else {
+					this.line.append(c);
+				}
+			}
+		}
+		this.line.append('"');
+	}
+
+}
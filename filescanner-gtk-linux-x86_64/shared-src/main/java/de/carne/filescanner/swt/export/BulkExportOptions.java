@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.filescanner.swt.export;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.carne.filescanner.engine.FileScannerResult;
+import de.carne.filescanner.engine.transfer.FileScannerResultExportHandler;
+
+/**
+ * This class holds the export options selected during a {@linkplain BulkExportDialog} invocation.
+ */
+public final class BulkExportOptions {
+
+	private final Path exportDir;
+	private final String nameFilter;
+	@Nullable
+	private final String exportType;
+	private final long minSize;
+	private final long maxSize;
+	private final int concurrency;
+
+	BulkExportOptions(Path exportDir, String nameFilter, @Nullable String exportType, long minSize, long maxSize,
+			int concurrency) {
+		this.exportDir = exportDir;
+		this.nameFilter = nameFilter.toLowerCase(Locale.ROOT);
+		this.exportType = exportType;
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.concurrency = concurrency;
+	}
+
+	static String exportTypeName(FileScannerResultExportHandler exportHandler) {
+		return String.format("%1$s (%2$s)", exportHandler.name(), exportHandler.transferType().mimeType());
+	}
+
+	/**
+	 * Gets the selected export directory.
+	 *
+	 * @return the selected export directory.
+	 */
+	public Path exportDir() {
+		return this.exportDir;
+	}
+
+	/**
+	 * Gets the maximum number of results to export concurrently.
+	 *
+	 * @return the maximum number of results to export concurrently.
+	 */
+	public int concurrency() {
+		return this.concurrency;
+	}
+
+	/**
+	 * Selects the {@linkplain FileScannerResultExportHandler} to use for exporting the given result.
+	 * <p>
+	 * If the result does not match the selected filter options, {@code null} is returned.
+	 *
+	 * @param result the {@linkplain FileScannerResult} to check.
+	 * @return the {@linkplain FileScannerResultExportHandler} to use or {@code null} if the result should not be
+	 * exported.
+	 */
+	@Nullable
+	public FileScannerResultExportHandler selectExportHandler(FileScannerResult result) {
+		FileScannerResultExportHandler selectedExportHandler = null;
+		long size = result.end() - result.start();
+
+		if (this.minSize <= size && size <= this.maxSize
+				&& result.name().toLowerCase(Locale.ROOT).contains(this.nameFilter)) {
+			FileScannerResultExportHandler[] exportHandlers = result.exportHandlers();
+			String checkedExportType = this.exportType;
+
+			if (checkedExportType == null) {
+				selectedExportHandler = (exportHandlers.length > 0 ? exportHandlers[0] : null);
+			} else {
+				for (FileScannerResultExportHandler exportHandler : exportHandlers) {
+					if (checkedExportType.equals(exportTypeName(exportHandler))) {
+						selectedExportHandler = exportHandler;
+						break;
+					}
+				}
+			}
+		}
+		return selectedExportHandler;
+	}
+
+}
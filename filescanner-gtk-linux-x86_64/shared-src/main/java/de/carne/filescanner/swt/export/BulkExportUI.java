@@ -0,0 +1,342 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.filescanner.swt.export;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.prefs.Preferences;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.widgets.Combo;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.DirectoryDialog;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.MessageBox;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Spinner;
+import org.eclipse.swt.widgets.Text;
+
+import de.carne.boot.Application;
+import de.carne.filescanner.engine.FileScannerResult;
+import de.carne.filescanner.engine.transfer.FileScannerResultExportHandler;
+import de.carne.filescanner.swt.FileScannerMain;
+import de.carne.filescanner.swt.resources.Images;
+import de.carne.nio.file.FileUtil;
+import de.carne.swt.graphics.ResourceException;
+import de.carne.swt.graphics.ResourceTracker;
+import de.carne.swt.layout.GridLayoutBuilder;
+import de.carne.swt.layout.RowLayoutBuilder;
+import de.carne.swt.platform.PlatformIntegration;
+import de.carne.swt.widgets.ButtonBuilder;
+import de.carne.swt.widgets.CompositeBuilder;
+import de.carne.swt.widgets.ControlBuilder;
+import de.carne.swt.widgets.LabelBuilder;
+import de.carne.swt.widgets.MessageBoxBuilder;
+import de.carne.swt.widgets.ShellBuilder;
+import de.carne.swt.widgets.ShellUserInterface;
+import de.carne.util.Exceptions;
+import de.carne.util.Late;
+import de.carne.util.prefs.PathPreference;
+import de.carne.util.validation.PathValidator;
+import de.carne.util.validation.StringValidator;
+import de.carne.util.validation.ValidationException;
+
+class BulkExportUI extends ShellUserInterface {
+
+	private static final PathPreference PREF_BULK_EXPORT_DIR = new PathPreference("bulkExportDir",
+			FileUtil.workingDir());
+
+	private static final int MAX_CONCURRENCY = 16;
+
+	private final Preferences preferences = Preferences.userNodeForPackage(BulkExportUI.class);
+	private final FileScannerResult result;
+	private final ResourceTracker resources;
+	private final List<String> exportTypes = new ArrayList<>();
+	private final Late<Text> nameFilterHolder = new Late<>();
+	private final Late<Combo> exportTypeHolder = new Late<>();
+	private final Late<Text> minSizeHolder = new Late<>();
+	private final Late<Text> maxSizeHolder = new Late<>();
+	private final Late<Spinner> concurrencyHolder = new Late<>();
+	private final Late<Text> exportDirTextHolder = new Late<>();
+	@Nullable
+	private BulkExportOptions exportOptions = null;
+	private volatile boolean collectStopped = false;
+
+	BulkExportUI(Shell root, FileScannerResult result) {
+		super(root);
+		this.result = result;
+		this.resources = ResourceTracker.forDevice(root.getDisplay()).forShell(root);
+	}
+
+	@Override
+	public void open() throws ResourceException {
+		ShellBuilder rootBuilder = buildRoot();
+
+		rootBuilder.pack();
+		rootBuilder.position(SWT.DEFAULT, SWT.DEFAULT);
+
+		Shell root = rootBuilder.get();
+
+		root.setMinimumSize(0, root.getSize().y);
+		root.open();
+	}
+
+	@Nullable
+	public BulkExportOptions getExportOptions() {
+		return this.exportOptions;
+	}
+
+	private ShellBuilder buildRoot() {
+		ShellBuilder rootBuilder = new ShellBuilder(root());
+		LabelBuilder title = rootBuilder.addLabelChild(SWT.NONE);
+		LabelBuilder separator1 = rootBuilder.addLabelChild(SWT.HORIZONTAL | SWT.SEPARATOR);
+		LabelBuilder nameFilterLabel = rootBuilder.addLabelChild(SWT.NONE);
+		ControlBuilder<Text> nameFilter = rootBuilder.addControlChild(Text.class, SWT.SINGLE | SWT.BORDER);
+		LabelBuilder exportTypeLabel = rootBuilder.addLabelChild(SWT.NONE);
+		ControlBuilder<Combo> exportType = rootBuilder.addControlChild(Combo.class, SWT.READ_ONLY);
+		LabelBuilder minSizeLabel = rootBuilder.addLabelChild(SWT.NONE);
+		ControlBuilder<Text> minSize = rootBuilder.addControlChild(Text.class, SWT.SINGLE | SWT.BORDER);
+		LabelBuilder maxSizeLabel = rootBuilder.addLabelChild(SWT.NONE);
+		ControlBuilder<Text> maxSize = rootBuilder.addControlChild(Text.class, SWT.SINGLE | SWT.BORDER);
+		LabelBuilder concurrencyLabel = rootBuilder.addLabelChild(SWT.NONE);
+		ControlBuilder<Spinner> concurrency = rootBuilder.addControlChild(Spinner.class, SWT.BORDER);
+		LabelBuilder exportDirLabel = rootBuilder.addLabelChild(SWT.NONE);
+		ControlBuilder<Text> exportDirText = rootBuilder.addControlChild(Text.class, SWT.SINGLE | SWT.BORDER);
+		ButtonBuilder exportDirButton = rootBuilder.addButtonChild(SWT.PUSH);
+		LabelBuilder separator2 = rootBuilder.addLabelChild(SWT.HORIZONTAL | SWT.SEPARATOR);
+		CompositeBuilder<Composite> buttons = rootBuilder.addCompositeChild(SWT.NONE);
+
+		rootBuilder.withText(ExportI18N.i18nBulkTitle()).withDefaultImages();
+		title.withText(ExportI18N.i18nLabelBulkExportResult(this.result.name()));
+		nameFilterLabel.withText(ExportI18N.i18nLabelNameFilter());
+		exportTypeLabel.withText(ExportI18N.i18nLabelExportType());
+		minSizeLabel.withText(ExportI18N.i18nLabelMinSize());
+		maxSizeLabel.withText(ExportI18N.i18nLabelMaxSize());
+		concurrencyLabel.withText(ExportI18N.i18nLabelConcurrency());
+		exportDirLabel.withText(ExportI18N.i18nLabelExportDir());
+		exportDirButton.withImage(this.resources.getImage(Images.class, Images.IMAGE_OPEN_FILE16));
+		exportDirButton.onSelected(this::onExportDirSelected);
+
+		buildButtons(buttons);
+
+		GridLayoutBuilder.layout(3).apply(rootBuilder);
+		GridLayoutBuilder.data(GridData.FILL_HORIZONTAL).span(3, 1).apply(title);
+		GridLayoutBuilder.data(GridData.FILL_HORIZONTAL).span(3, 1).apply(separator1);
+		GridLayoutBuilder.data().apply(nameFilterLabel);
+		GridLayoutBuilder.data(GridData.FILL_HORIZONTAL).span(2, 1).apply(nameFilter);
+		GridLayoutBuilder.data().apply(exportTypeLabel);
+		GridLayoutBuilder.data(GridData.FILL_HORIZONTAL).span(2, 1).apply(exportType);
+		GridLayoutBuilder.data().apply(minSizeLabel);
+		GridLayoutBuilder.data(GridData.FILL_HORIZONTAL).span(2, 1).apply(minSize);
+		GridLayoutBuilder.data().apply(maxSizeLabel);
+		GridLayoutBuilder.data(GridData.FILL_HORIZONTAL).span(2, 1).apply(maxSize);
+		GridLayoutBuilder.data().apply(concurrencyLabel);
+		GridLayoutBuilder.data().span(2, 1).apply(concurrency);
+		GridLayoutBuilder.data().apply(exportDirLabel);
+		GridLayoutBuilder.data(GridData.FILL_HORIZONTAL).apply(exportDirText);
+		GridLayoutBuilder.data().apply(exportDirButton);
+		GridLayoutBuilder.data(GridData.FILL_HORIZONTAL).span(3, 1).apply(separator2);
+		GridLayoutBuilder.data().align(SWT.END, SWT.TOP).grab(false, false).span(3, 1).apply(buttons);
+
+		this.nameFilterHolder.set(nameFilter.get());
+		this.exportTypeHolder.set(exportType.get());
+		this.minSizeHolder.set(minSize.get());
+		this.maxSizeHolder.set(maxSize.get());
+		this.concurrencyHolder.set(concurrency.get());
+		this.exportDirTextHolder.set(exportDirText.get());
+		initializeOptions();
+
+		return rootBuilder;
+	}
+
+	private void initializeOptions() {
+		Combo exportType = this.exportTypeHolder.get();
+
+		exportType.add(ExportI18N.i18nTextDefaultExportType());
+		exportType.select(0);
+		startCollectExportTypes();
+
+		Spinner concurrency = this.concurrencyHolder.get();
+
+		concurrency.setValues(Math.min(Runtime.getRuntime().availableProcessors(), 4), 1, MAX_CONCURRENCY, 0, 1, 4);
+
+		this.exportDirTextHolder.get().setText(PREF_BULK_EXPORT_DIR.get(this.preferences).toString());
+	}
+
+	private void startCollectExportTypes() {
+		// The subtree may be huge; collect the available export types in the background and add them once done
+		Shell root = root();
+		Display display = root.getDisplay();
+
+		root.addDisposeListener(event -> this.collectStopped = true);
+		Application.getMain(FileScannerMain.class).cachedThreadPool().execute(() -> {
+			TreeSet<String> collectedExportTypes = collectExportTypes();
+
+			if (!this.collectStopped && !display.isDisposed()) {
+				display.asyncExec(() -> addExportTypes(collectedExportTypes));
+			}
+		});
+	}
+
+	private TreeSet<String> collectExportTypes() {
+		TreeSet<String> collectedExportTypes = new TreeSet<>();
+		Deque<FileScannerResult> pending = new ArrayDeque<>();
+
+		pending.push(this.result);
+		while (!pending.isEmpty() && !this.collectStopped) {
+			FileScannerResult current = pending.pop();
+
+			for (FileScannerResultExportHandler exportHandler : current.exportHandlers()) {
+				collectedExportTypes.add(BulkExportOptions.exportTypeName(exportHandler));
+			}
+			for (FileScannerResult child : current.children()) {
+				pending.push(child);
+			}
+		}
+		return collectedExportTypes;
+	}
+
+	private void addExportTypes(Collection<String> collectedExportTypes) {
+		Combo exportType = this.exportTypeHolder.get();
+
+		if (!exportType.isDisposed()) {
+			this.exportTypes.addAll(collectedExportTypes);
+			collectedExportTypes.forEach(exportType::add);
+		}
+	}
+
+	private void buildButtons(CompositeBuilder<Composite> buttons) {
+		ButtonBuilder cancelButton = buttons.addButtonChild(SWT.PUSH);
+		ButtonBuilder exportButton = buttons.addButtonChild(SWT.PUSH);
+
+		if (PlatformIntegration.isButtonOrderLeftToRight()) {
+			exportButton.get().moveAbove(cancelButton.get());
+		}
+		cancelButton.withText(ExportI18N.i18nButtonCancel());
+		cancelButton.onSelected(this::onCancelSelected);
+		exportButton.withText(ExportI18N.i18nButtonExport());
+		exportButton.onSelected(this::onExportSelected);
+		RowLayoutBuilder.layout().fill(true).margin(0, 0, 0, 0).apply(buttons);
+		RowLayoutBuilder.data().apply(cancelButton);
+		RowLayoutBuilder.data().apply(exportButton);
+	}
+
+	private void onExportDirSelected() {
+		try {
+			DirectoryDialog directoryDialog = new DirectoryDialog(root());
+
+			directoryDialog.setFilterPath(this.exportDirTextHolder.get().getText().trim());
+
+			String exportDir = directoryDialog.open();
+
+			if (exportDir != null) {
+				this.exportDirTextHolder.get().setText(exportDir);
+			}
+		} catch (Exception e) {
+			unexpectedException(e);
+		}
+	}
+
+	private void onCancelSelected() {
+		root().close();
+	}
+
+	private void onExportSelected() {
+		try {
+			BulkExportOptions validatedExportOptions = validateAndGetExportOptions();
+
+			if (validatedExportOptions != null) {
+				PREF_BULK_EXPORT_DIR.put(this.preferences, validatedExportOptions.exportDir());
+				this.preferences.sync();
+				this.exportOptions = validatedExportOptions;
+				root().close();
+			}
+		} catch (ValidationException e) {
+			validationMessageBox(Exceptions.getMessage(e));
+		} catch (Exception e) {
+			unexpectedException(e);
+		}
+	}
+
+	@Nullable
+	private BulkExportOptions validateAndGetExportOptions() throws ValidationException {
+		Path exportDir = StringValidator
+				.checkNotEmpty(this.exportDirTextHolder.get().getText(), ExportI18N::i18nMessageNoExportDir)
+				.convert(PathValidator::fromString, ExportI18N::i18nMessageInvalidExportDir).get();
+		BulkExportOptions validatedExportOptions = null;
+
+		if (!Files.isDirectory(exportDir)) {
+			validationMessageBox(ExportI18N.i18nMessageInvalidExportDir(exportDir));
+		} else {
+			String minSizeText = this.minSizeHolder.get().getText().trim();
+			String maxSizeText = this.maxSizeHolder.get().getText().trim();
+			long minSize = parseSize(minSizeText, 0);
+			long maxSize = parseSize(maxSizeText, Long.MAX_VALUE);
+
+			if (minSize < 0) {
+				validationMessageBox(ExportI18N.i18nMessageInvalidSize(minSizeText));
+			} else if (maxSize < 0) {
+				validationMessageBox(ExportI18N.i18nMessageInvalidSize(maxSizeText));
+			} else if (minSize > maxSize) {
+				validationMessageBox(ExportI18N.i18nMessageInvalidSizeRange(minSizeText, maxSizeText));
+			} else {
+				int exportTypeIndex = this.exportTypeHolder.get().getSelectionIndex();
+				String exportType = (exportTypeIndex > 0 ? this.exportTypes.get(exportTypeIndex - 1) : null);
+
+				validatedExportOptions = new BulkExportOptions(exportDir, this.nameFilterHolder.get().getText().trim(),
+						exportType, minSize, maxSize, this.concurrencyHolder.get().getSelection());
+			}
+		}
+		return validatedExportOptions;
+	}
+
+	private static long parseSize(String sizeText, long defaultSize) {
+		long size;
+
+		if (sizeText.isEmpty()) {
+			size = defaultSize;
+		} else {
+			try {
+				size = Long.parseLong(sizeText);
+			} catch (NumberFormatException e) {
+				Exceptions.ignore(e);
+				size = -1;
+			}
+		}
+		return size;
+	}
+
+	private void validationMessageBox(String message) {
+		try {
+			MessageBox messageBox = MessageBoxBuilder.error(root()).withText(root().getText()).withMessage(message)
+					.get();
+
+			messageBox.open();
+		} catch (Exception e) {
+			unexpectedException(e);
+		}
+	}
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.filescanner.swt.main;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+
+import org.eclipse.swt.widgets.Display;
+
+import de.carne.boot.Application;
+import de.carne.filescanner.swt.FileScannerMain;
+import de.carne.filescanner.swt.TaskExecutors;
+import de.carne.util.Exceptions;
+import de.carne.util.logging.Log;
+
+/**
+ * Runs the UI's background tasks (exports, clipboard copies, ...).
+ * <p>
+ * Tasks run concurrently, each one reporting to its own {@linkplain ProgressUI}. Task completion is delivered to the
+ * UI thread asynchronously; the UI thread never waits for a task. All functions must be called from the UI thread.
+ */
+final class BackgroundTasks {
+
+	private static final Log LOG = new Log();
+
+	private static final int STATUS_UPDATE_INTERVAL = 500;
+
+	private final ExecutorService executor = TaskExecutors.newCachedExecutor("tasks");
+	private final Set<BackgroundTask<?>> activeTasks = new LinkedHashSet<>();
+	private final StatusConsumer status;
+	private final Consumer<Throwable> failureHandler;
+	private boolean statusUpdateScheduled = false;
+	private boolean closed = false;
+
+	/**
+	 * Receiver of the aggregated background task status.
+	 */
+	@FunctionalInterface
+	interface StatusConsumer {
+
+		/**
+		 * Called whenever the aggregated background task status has been updated.
+		 *
+		 * @param taskCount the number of active tasks.
+		 * @param progress the aggregated progress of all active tasks (in percent) or {@code -1} if undetermined.
+		 */
+		void accept(int taskCount, int progress);
+
+	}
+
+	BackgroundTasks(StatusConsumer status, Consumer<Throwable> failureHandler) {
+		this.status = status;
+		this.failureHandler = failureHandler;
+	}
+
+	/**
+	 * Starts a background task.
+	 * <p>
+	 * The given {@linkplain ProgressUI} is opened and used to stop the task. The success handler is invoked on the UI
+	 * thread if the task finishes without failure and has not been stopped.
+	 *
+	 * @param <T> the task's result type.
+	 * @param progress the task's progress UI.
+	 * @param task the task to run.
+	 * @param successHandler the handler to invoke with the task's result.
+	 */
+	public <T> void start(ProgressUI progress, Callable<T> task, Consumer<T> successHandler) {
+		BackgroundTask<T> backgroundTask = new BackgroundTask<>(progress, task, successHandler);
+
+		progress.open(this.activeTasks.size());
+		progress.setTask(backgroundTask);
+		this.activeTasks.add(backgroundTask);
+		this.executor.execute(backgroundTask);
+		updateStatus();
+	}
+
+	/**
+	 * Stops all active tasks and releases the executor.
+	 */
+	public void close() {
+		this.closed = true;
+		for (BackgroundTask<?> task : this.activeTasks) {
+			task.cancel(true);
+		}
+		this.activeTasks.clear();
+		this.executor.shutdownNow();
+	}
+
+	private <T> void taskDone(BackgroundTask<T> task) {
+		if (this.activeTasks.remove(task)) {
+			try {
+				// Task is done; get() does not block
+				T result = task.get();
+
+				if (!task.progress().isStopped()) {
+					task.successHandler().accept(result);
+				}
+			} catch (CancellationException e) {
+				Exceptions.ignore(e);
+			} catch (InterruptedException e) {
+				Exceptions.ignore(e);
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				Throwable cause = Exceptions.getCause(e);
+
+				if (cause instanceof StoppedException || task.progress().isStopped()) {
+					LOG.info("Background task stopped");
+				} else {
+					this.failureHandler.accept(cause);
+				}
+			}
+			updateStatus();
+		}
+	}
+
+	private void updateStatus() {
+		long totalSum = 0;
+		long progressSum = 0;
+
+		for (BackgroundTask<?> task : this.activeTasks) {
+			long total = task.progress().total();
+
+			if (total > 0) {
+				totalSum += total;
+				progressSum += Math.min(task.progress().progress(), total);
+			}
+		}
+
+		int progressValue = (totalSum > 0 ? (int) ((progressSum * 100) / totalSum) : -1);
+
+		this.status.accept(this.activeTasks.size(), progressValue);
+		if (!this.activeTasks.isEmpty() && !this.statusUpdateScheduled) {
+			this.statusUpdateScheduled = true;
+			Display.getCurrent().timerExec(STATUS_UPDATE_INTERVAL, this::onStatusUpdate);
+		}
+	}
+
+	private void onStatusUpdate() {
+		this.statusUpdateScheduled = false;
+		if (!this.closed) {
+			updateStatus();
+		}
+	}
+
+	private final class BackgroundTask<T> extends FutureTask<T> {
+
+		private final ProgressUI progress;
+		private final Consumer<T> successHandler;
+
+		BackgroundTask(ProgressUI progress, Callable<T> task, Consumer<T> successHandler) {
+			super(task);
+			this.progress = progress;
+			this.successHandler = successHandler;
+		}
+
+		ProgressUI progress() {
+			return this.progress;
+		}
+
+		Consumer<T> successHandler() {
+			return this.successHandler;
+		}
+
+		@Override
+		protected void done() {
+			Application.getMain(FileScannerMain.class).runNoWait(() -> taskDone(this));
+		}
+
+	}
+
+}
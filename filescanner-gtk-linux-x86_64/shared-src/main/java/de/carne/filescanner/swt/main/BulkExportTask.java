@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.filescanner.swt.main;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import de.carne.filescanner.engine.FileScannerResult;
+import de.carne.filescanner.engine.transfer.FileScannerResultExportHandler;
+import de.carne.filescanner.engine.transfer.TransferSource;
+import de.carne.filescanner.swt.TaskExecutors;
+import de.carne.filescanner.swt.export.BulkExportOptions;
+import de.carne.text.MemoryUnitFormat;
+import de.carne.util.Exceptions;
+import de.carne.util.logging.Log;
+
+/**
+ * Exports all results of a result subtree matching the {@linkplain BulkExportOptions}.
+ * <p>
+ * Results are exported concurrently (bounded by {@linkplain BulkExportOptions#concurrency()}) into the selected
+ * directory. Existing files are never overwritten; conflicting file names are made unique by adding a suffix. Failed
+ * exports are logged and counted, but do not abort the remaining exports.
+ */
+class BulkExportTask implements Callable<BulkExportTask.Summary> {
+
+	private static final Log LOG = new Log();
+
+	private final ProgressCallback progress;
+	private final BulkExportOptions options;
+	private final FileScannerResult result;
+	private int failedCount = 0;
+
+	public BulkExportTask(ProgressCallback progress, BulkExportOptions options, FileScannerResult result) {
+		this.progress = progress;
+		this.options = options;
+		this.result = result;
+	}
+
+	@Override
+	public Summary call() throws IOException, InterruptedException {
+		Path exportDir = this.options.exportDir();
+
+		LOG.info("Exporting results below ''{0}'' to directory ''{1}''...", this.result.name(), exportDir);
+
+		long startNanos = System.nanoTime();
+		int exportedCount = 0;
+		long exportedBytes = 0;
+
+		try {
+			List<Export> exports = collectExports(exportDir);
+			long total = 0;
+
+			for (Export export : exports) {
+				total += export.result.end() - export.result.start();
+			}
+			this.progress.setTotal(total);
+
+			ExecutorService executor = TaskExecutors.newFixedExecutor("bulk-export", this.options.concurrency());
+
+			try {
+				List<Future<Long>> exportFutures = new ArrayList<>(exports.size());
+
+				for (Export export : exports) {
+					exportFutures.add(executor.submit(() -> exportResult(export)));
+				}
+				for (int exportIndex = 0; exportIndex < exports.size(); exportIndex++) {
+					try {
+						exportedBytes += exportFutures.get(exportIndex).get().longValue();
+						exportedCount++;
+					} catch (ExecutionException e) {
+						Throwable cause = Exceptions.getCause(e);
+
+						if (cause instanceof StoppedException) {
+							throw (StoppedException) cause;
+						}
+						LOG.warning(cause, "Failed to export result ''{0}'' to ''{1}''",
+								exports.get(exportIndex).result.name(), exports.get(exportIndex).path);
+
+						this.failedCount++;
+					}
+				}
+			} finally {
+				executor.shutdownNow();
+			}
+		} finally {
+			this.progress.done();
+		}
+
+		long elapsedMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), 1);
+		MemoryUnitFormat memoryUnitFormat = MemoryUnitFormat.getMemoryUnitInstance();
+
+		LOG.info("Exporting to directory ''{0}'' finished ({1} exported, {2} failed; {3} in {4} ms; {5}/s)", exportDir,
+				exportedCount, this.failedCount, memoryUnitFormat.format(exportedBytes), elapsedMillis,
+				memoryUnitFormat.format((exportedBytes * 1000) / elapsedMillis));
+
+		return new Summary(exportDir, exportedCount, this.failedCount);
+	}
+
+	private List<Export> collectExports(Path exportDir) {
+		List<Export> exports = new ArrayList<>();
+		Set<String> fileNames = new HashSet<>();
+		Deque<FileScannerResult> pending = new ArrayDeque<>();
+
+		pending.push(this.result);
+		while (!pending.isEmpty()) {
+			FileScannerResult current = pending.pop();
+			FileScannerResultExportHandler exportHandler = this.options.selectExportHandler(current);
+
+			if (exportHandler != null) {
+				try {
+					String fileName = uniqueFileName(exportDir, fileNames,
+							String.format("%016x_%s", current.start(), exportHandler.defaultFileName(current)));
+
+					exports.add(new Export(current, exportHandler, exportDir.resolve(fileName)));
+				} catch (IOException | InvalidPathException e) {
+					LOG.warning(e, "Failed to determine export file name for result ''{0}''", current.name());
+
+					this.failedCount++;
+				}
+			}
+
+			FileScannerResult[] children = current.children();
+
+			// Push in reverse order to export results in tree order
+			for (int childIndex = children.length - 1; childIndex >= 0; childIndex--) {
+				pending.push(children[childIndex]);
+			}
+		}
+		return exports;
+	}
+
+	private static String uniqueFileName(Path exportDir, Set<String> fileNames, String fileName) {
+		String uniqueFileName = fileName;
+		int extensionIndex = fileName.lastIndexOf('.');
+		String baseName = (extensionIndex > 0 ? fileName.substring(0, extensionIndex) : fileName);
+		String extension = (extensionIndex > 0 ? fileName.substring(extensionIndex) : "");
+		int suffix = 1;
+
+		// Never overwrite existing files; neither ones already in the export directory nor ones of this export
+		while (Files.exists(exportDir.resolve(uniqueFileName)) || !fileNames.add(uniqueFileName)) {
+			uniqueFileName = baseName + "_" + suffix + extension;
+			suffix++;
+		}
+		return uniqueFileName;
+	}
+
+	private Long exportResult(Export export) throws IOException {
+		TransferSource transferSource = export.result.export(export.exportHandler);
+		long exportSize;
+
+		try (FileChannel fileChannel = FileChannel.open(export.path, StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.WRITE);
+				FileChannelProgress exportProgress = new FileChannelProgress(this.progress, fileChannel)) {
+			transferSource.transfer(fileChannel);
+			exportSize = fileChannel.size();
+		}
+		return Long.valueOf(exportSize);
+	}
+
+	private static final class Export {
+
+		final FileScannerResult result;
+		final FileScannerResultExportHandler exportHandler;
+		final Path path;
+
+		Export(FileScannerResult result, FileScannerResultExportHandler exportHandler, Path path) {
+			this.result = result;
+			this.exportHandler = exportHandler;
+			this.path = path;
+		}
+
+	}
+
+	/**
+	 * Summary of a finished bulk export.
+	 */
+	static final class Summary {
+
+		private final Path exportDir;
+		private final int exportedCount;
+		private final int failedCount;
+
+		Summary(Path exportDir, int exportedCount, int failedCount) {
+			this.exportDir = exportDir;
+			this.exportedCount = exportedCount;
+			this.failedCount = failedCount;
+		}
+
+		public Path exportDir() {
+			return this.exportDir;
+		}
+
+		public int exportedCount() {
+			return this.exportedCount;
+		}
+
+		public int failedCount() {
+			return this.failedCount;
+		}
+
+	}
+
+}
@@ -16,13 +16,19 @@
  */
 package de.carne.filescanner.swt.main;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.Objects;
 
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.swt.dnd.Clipboard;
 import org.eclipse.swt.dnd.FileTransfer;
 import org.eclipse.swt.dnd.HTMLTransfer;
@@ -34,10 +40,27 @@ import org.eclipse.swt.graphics.ImageData;
 import de.carne.filescanner.engine.transfer.TransferSource;
 import de.carne.nio.file.FileUtil;
 import de.carne.nio.file.attribute.FileAttributes;
+import de.carne.util.Exceptions;
 import de.carne.util.Late;
+import de.carne.util.SystemProperties;
+import de.carne.util.logging.Log;
 
 abstract class ClipboardContent {
 
+	private static final Log LOG = new Log();
+
+	/**
+	 * Transfer sources larger than this (or of unknown size) are streamed into a temporary file instead of memory.
+	 */
+	private static final long STREAM_THRESHOLD = SystemProperties.longValue(ClipboardContent.class,
+			".streamThreshold", 4l * 1024l * 1024l);
+
+	/**
+	 * Text data larger than this is transferred as a file instead of text.
+	 */
+	private static final long TEXT_LIMIT = SystemProperties.longValue(ClipboardContent.class, ".textLimit",
+			64l * 1024l * 1024l);
+
 	protected final Transfer transfer;
 
 	protected ClipboardContent(Transfer transfer) {
@@ -47,20 +70,16 @@ abstract class ClipboardContent {
 	public static ClipboardContent textContent() {
 		return new ClipboardContent(TextTransfer.getInstance()) {
 
-			private Late<String> textData = new Late<>();
+			private final TextData textData = new TextData(".txt");
 
 			@Override
 			public void prepareTransfer(ProgressCallback progress, TransferSource transferSource) throws IOException {
-				try (OutputStream textDataStream = new ProgressOutputStream(progress, new ByteArrayOutputStream())) {
-					transferSource.transfer(textDataStream);
-					this.textData.set(textDataStream.toString());
-				}
+				this.textData.prepare(progress, transferSource);
 			}
 
 			@Override
 			public ClipboardContentHolder transfer(Clipboard clipboard) {
-				clipboard.setContents(new Object[] { this.textData.get() }, new Transfer[] { this.transfer });
-				return ClipboardContentHolder.KEEP;
+				return this.textData.transfer(clipboard, this.transfer, ClipboardContentHolder.KEEP);
 			}
 
 		};
@@ -69,20 +88,17 @@ abstract class ClipboardContent {
 	public static ClipboardContent htmlContent(boolean detachable) {
 		return new ClipboardContent(HTMLTransfer.getInstance()) {
 
-			private Late<String> htmlData = new Late<>();
+			private final TextData htmlData = new TextData(".html");
 
 			@Override
 			public void prepareTransfer(ProgressCallback progress, TransferSource transferSource) throws IOException {
-				try (OutputStream textDataStream = new ProgressOutputStream(progress, new ByteArrayOutputStream())) {
-					transferSource.transfer(textDataStream);
-					this.htmlData.set(textDataStream.toString());
-				}
+				this.htmlData.prepare(progress, transferSource);
 			}
 
 			@Override
 			public ClipboardContentHolder transfer(Clipboard clipboard) {
-				clipboard.setContents(new Object[] { this.htmlData.get() }, new Transfer[] { this.transfer });
-				return (detachable ? ClipboardContentHolder.KEEP : ClipboardContentHolder.DISPOSE_ON_DETACH);
+				return this.htmlData.transfer(clipboard, this.transfer,
+						(detachable ? ClipboardContentHolder.KEEP : ClipboardContentHolder.DISPOSE_ON_DETACH));
 			}
 
 		};
@@ -95,8 +111,24 @@ abstract class ClipboardContent {
 
 			@Override
 			public void prepareTransfer(ProgressCallback progress, TransferSource transferSource) throws IOException {
-				try (PipedTransferSource imageStream = new PipedTransferSource(progress, transferSource)) {
-					this.imageData.set(new ImageData(imageStream));
+				long size = transferSource.size();
+
+				// Decode directly on the calling thread; either from memory or from a temporary file
+				if (0 <= size && size <= STREAM_THRESHOLD) {
+					ByteArrayOutputStream imageBytes = new ByteArrayOutputStream((int) size);
+
+					try (OutputStream imageStream = new ProgressOutputStream(progress, imageBytes)) {
+						transferSource.transfer(imageStream);
+					}
+					this.imageData.set(new ImageData(new ByteArrayInputStream(imageBytes.toByteArray())));
+				} else {
+					Path file = transferToTempFile(progress, transferSource, null);
+
+					try (InputStream imageStream = Files.newInputStream(file)) {
+						this.imageData.set(new ImageData(imageStream));
+					} finally {
+						deleteTempFile(file);
+					}
 				}
 			}
 
@@ -116,23 +148,12 @@ abstract class ClipboardContent {
 
 			@Override
 			public void prepareTransfer(ProgressCallback progress, TransferSource transferSource) throws IOException {
-				Path tmpDir = FileUtil.tmpDir();
-				Path file = Files.createTempFile(tmpDir, null, suffix, FileAttributes.userFileDefault(tmpDir));
-
-				try (OutputStream fileStream = new ProgressOutputStream(progress,
-						Files.newOutputStream(file, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
-					transferSource.transfer(fileStream);
-				}
-				this.fileData.set(file);
+				this.fileData.set(transferToTempFile(progress, transferSource, suffix));
 			}
 
 			@Override
 			public ClipboardContentHolder transfer(Clipboard clipboard) {
-				Path file = this.fileData.get();
-
-				clipboard.setContents(new Object[] { new String[] { file.toString() } },
-						new Transfer[] { this.transfer });
-				return ClipboardContentHolder.deleteFile(file);
+				return transferFile(clipboard, this.fileData.get());
 			}
 
 		};
@@ -142,4 +163,100 @@ abstract class ClipboardContent {
 
 	public abstract ClipboardContentHolder transfer(Clipboard clipboard);
 
+	static Path transferToTempFile(ProgressCallback progress, TransferSource transferSource, @Nullable String suffix)
+			throws IOException {
+		Path tmpDir = FileUtil.tmpDir();
+		Path file = Files.createTempFile(tmpDir, null, suffix, FileAttributes.userFileDefault(tmpDir));
+
+		try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE);
+				FileChannelProgress fileProgress = new FileChannelProgress(progress, fileChannel)) {
+			transferSource.transfer(fileChannel);
+		} catch (IOException e) {
+			deleteTempFile(file);
+			throw e;
+		}
+		return file;
+	}
+
+	static ClipboardContentHolder transferFile(Clipboard clipboard, Path file) {
+		clipboard.setContents(new Object[] { new String[] { file.toString() } },
+				new Transfer[] { FileTransfer.getInstance() });
+		return ClipboardContentHolder.deleteFile(file);
+	}
+
+	static void deleteTempFile(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			Exceptions.ignore(e);
+		}
+	}
+
+	/**
+	 * Text data to transfer.
+	 * <p>
+	 * Depending on the transfer source's size, the text is either collected in memory, streamed into a temporary file
+	 * and decoded from there or (if it exceeds the text limit) transferred as a file.
+	 */
+	private static final class TextData {
+
+		private final String fileSuffix;
+		@Nullable
+		private String text = null;
+		@Nullable
+		private Path file = null;
+
+		TextData(String fileSuffix) {
+			this.fileSuffix = fileSuffix;
+		}
+
+		void prepare(ProgressCallback progress, TransferSource transferSource) throws IOException {
+			long size = transferSource.size();
+
+			if (0 <= size && size <= STREAM_THRESHOLD) {
+				ByteArrayOutputStream textBytes = new ByteArrayOutputStream((int) size);
+
+				try (OutputStream textStream = new ProgressOutputStream(progress, textBytes)) {
+					transferSource.transfer(textStream);
+				}
+				this.text = textBytes.toString();
+			} else {
+				Path textFile = transferToTempFile(progress, transferSource, this.fileSuffix);
+				long textFileSize = Files.size(textFile);
+
+				if (textFileSize > TEXT_LIMIT) {
+					LOG.info("Transferring text data of size {0} as file ''{1}''", textFileSize, textFile);
+
+					this.file = textFile;
+				} else {
+					try {
+						this.text = decodeText(textFile);
+					} finally {
+						deleteTempFile(textFile);
+					}
+				}
+			}
+		}
+
+		private static String decodeText(Path textFile) throws IOException {
+			// Decode directly into the final string; a file sized buffer is the only additional copy
+			return new String(Files.readAllBytes(textFile), Charset.defaultCharset());
+		}
+
+		ClipboardContentHolder transfer(Clipboard clipboard, Transfer transfer, ClipboardContentHolder textHolder) {
+			Path checkedFile = this.file;
+			ClipboardContentHolder holder;
+
+			if (checkedFile != null) {
+				holder = transferFile(clipboard, checkedFile);
+			} else {
+				clipboard.setContents(new Object[] { Objects.requireNonNull(this.text) }, new Transfer[] { transfer });
+				holder = textHolder;
+			}
+			return holder;
+		}
+
+	}
+
 }
@@ -17,19 +17,20 @@
 package de.carne.filescanner.swt.main;
 
 import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.file.Files;
+import java.nio.channels.FileChannel;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 import de.carne.filescanner.engine.FileScannerResult;
 import de.carne.filescanner.engine.transfer.FileScannerResultExportHandler;
 import de.carne.filescanner.engine.transfer.TransferSource;
 import de.carne.filescanner.swt.export.ExportOptions;
+import de.carne.text.MemoryUnitFormat;
 import de.carne.util.logging.Log;
 
 class ExportTask implements Callable<Void> {
@@ -55,18 +56,31 @@ class ExportTask implements Callable<Void> {
 	public Void call() throws IOException {
 		LOG.info("Exporting result ''{0}'' to path ''{1}''...", this.result.name(), this.path);
 
-		try (OutputStream exportStream = new ProgressOutputStream(this.progress,
-				Files.newOutputStream(this.path, getOpenOptions()))) {
+		long startNanos = System.nanoTime();
+		long exportSize;
+
+		// Hand the file channel itself to the transfer source (progress is polled); this lets file backed sources use
+		// the platform's zero-copy transfer
+		try (FileChannel exportChannel = FileChannel.open(this.path, getOpenOptions());
+				FileChannelProgress exportProgress = new FileChannelProgress(this.progress, exportChannel)) {
 			TransferSource transferSource = this.result.export(this.exportHandler);
 
-			this.progress.setTotal(transferSource.size());
+			exportSize = transferSource.size();
+			this.progress.setTotal(exportSize);
 
-			transferSource.transfer(exportStream);
+			transferSource.transfer(exportChannel);
 		} finally {
 			this.progress.done();
 		}
 
-		LOG.info("Exporting to path ''{0}'' finished", this.path);
+		if (LOG.isInfoLoggable()) {
+			long elapsedMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), 1);
+			MemoryUnitFormat memoryUnitFormat = MemoryUnitFormat.getMemoryUnitInstance();
+
+			LOG.info("Exporting to path ''{0}'' finished ({1} in {2} ms; {3}/s)", this.path,
+					memoryUnitFormat.format(exportSize), elapsedMillis,
+					memoryUnitFormat.format((exportSize * 1000) / elapsedMillis));
+		}
 
 		return null;
 	}
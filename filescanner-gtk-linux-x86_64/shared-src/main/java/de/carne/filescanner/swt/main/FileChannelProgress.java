@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.filescanner.swt.main;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import de.carne.util.Exceptions;
+import de.carne.util.SystemProperties;
+
+/**
+ * Reports the data written to a {@linkplain FileChannel} to a {@linkplain ProgressCallback}.
+ * <p>
+ * Instead of wrapping the channel, the channel's size is polled every {@code FileChannelProgress.pollInterval} ms. This
+ * way the channel itself can be handed to the transfer source, which is required for the channel transfer functions
+ * ({@code transferFrom}/{@code transferTo}) to use the platform's zero-copy path. If the progress is stopped, the
+ * channel is closed to abort any running transfer.
+ */
+final class FileChannelProgress implements Closeable {
+
+	private static final long POLL_INTERVAL = SystemProperties.longValue(FileChannelProgress.class, ".pollInterval",
+			250);
+
+	private static final ScheduledExecutorService POLLER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "file-channel-progress");
+
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final ProgressCallback progress;
+	private final FileChannel channel;
+	private final ScheduledFuture<?> poll;
+	private long reportedSize = 0;
+	private boolean stopped = false;
+
+	/**
+	 * Starts reporting the data written to the given channel.
+	 *
+	 * @param progress the {@linkplain ProgressCallback} to report to.
+	 * @param channel the {@linkplain FileChannel} to monitor (must be empty initially).
+	 */
+	FileChannelProgress(ProgressCallback progress, FileChannel channel) {
+		this.progress = progress;
+		this.channel = channel;
+		this.poll = POLLER.scheduleWithFixedDelay(this::poll, POLL_INTERVAL, POLL_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	private synchronized void poll() {
+		if (!this.stopped && this.channel.isOpen()) {
+			try {
+				long size = this.channel.size();
+
+				if (size > this.reportedSize) {
+					long progressDelta = size - this.reportedSize;
+
+					this.reportedSize = size;
+					if (!this.progress.addProgress(progressDelta)) {
+						this.stopped = true;
+						this.channel.close();
+					}
+				}
+			} catch (IOException e) {
+				// Channel has been closed concurrently
+				Exceptions.ignore(e);
+			}
+		}
+	}
+
+	/**
+	 * Stops polling and reports any remaining progress.
+	 *
+	 * @throws StoppedException if the progress has been stopped while the channel was written.
+	 */
+	@Override
+	public void close() throws StoppedException {
+		this.poll.cancel(false);
+		poll();
+		synchronized (this) {
+			if (this.stopped) {
+				throw new StoppedException();
+			}
+		}
+	}
+
+}
@@ -19,18 +19,15 @@ package de.carne.filescanner.swt.main;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Objects;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 
-import de.carne.boot.Application;
 import de.carne.filescanner.engine.FileScanner;
 import de.carne.filescanner.engine.FileScannerProgress;
 import de.carne.filescanner.engine.FileScannerResult;
 import de.carne.filescanner.engine.FileScannerStatus;
 import de.carne.filescanner.engine.Formats;
-import de.carne.filescanner.swt.FileScannerMain;
 import de.carne.filescanner.swt.preferences.UserPreferences;
 import de.carne.util.Exceptions;
 
@@ -40,10 +37,17 @@ import de.carne.util.Exceptions;
 class MainController implements FileScannerStatus {
 
 	private final MainUI ui;
+	// Accessed by the UI thread as well as the scanner threads invoking the status callbacks
 	@Nullable
-	private SearchIndex searchIndex = null;
+	private volatile SearchIndex searchIndex = null;
 	@Nullable
-	private FileScanner fileScanner = null;
+	private volatile SearchIndexer searchIndexer = null;
+	@Nullable
+	private volatile FileScanner fileScanner = null;
+	@Nullable
+	private volatile ScanStatusDispatcher statusDispatcher = null;
+	@Nullable
+	private SearchIndexer closingSearchIndexer = null;
 
 	MainController(MainUI ui) {
 		this.ui = ui;
@@ -57,9 +61,18 @@ class MainController implements FileScannerStatus {
 		Formats formats = Formats.all();
 
 		UserPreferences.get().getDisabledFormats().forEach(formats::disable);
-		this.searchIndex = new SearchIndex();
-		this.fileScanner = FileScanner.scan(filePath, formats.enabledFormats(), this);
-		return this.fileScanner.result();
+		awaitSearchIndexClosed();
+
+		SearchIndex newSearchIndex = new SearchIndex(filePath, formats.enabledFormats());
+
+		this.searchIndex = newSearchIndex;
+		this.searchIndexer = new SearchIndexer(newSearchIndex);
+		this.statusDispatcher = new ScanStatusDispatcher(this.ui);
+
+		FileScanner newFileScanner = FileScanner.scan(filePath, formats.enabledFormats(), this);
+
+		this.fileScanner = newFileScanner;
+		return newFileScanner.result();
 	}
 
 	void close() {
@@ -68,25 +81,58 @@ class MainController implements FileScannerStatus {
 		} catch (IOException e) {
 			Exceptions.ignore(e);
 		}
+		// Make sure a cached index is completely written before exiting
+		awaitSearchIndexClosed();
 	}
 
 	private void closeScan() throws IOException {
 		FileScanner oldFileScanner = this.fileScanner;
+		ScanStatusDispatcher oldStatusDispatcher = this.statusDispatcher;
+		SearchIndexer oldSearchIndexer = this.searchIndexer;
 		SearchIndex oldSearchIndex = this.searchIndex;
 
+		// Stop the scanner first; status callbacks already in progress still find their dispatcher and indexer
 		this.fileScanner = null;
+		if (oldFileScanner != null) {
+			oldFileScanner.close();
+		}
+		this.statusDispatcher = null;
+		this.searchIndexer = null;
 		this.searchIndex = null;
-		if (oldSearchIndex != null) {
+		if (oldStatusDispatcher != null) {
+			oldStatusDispatcher.cancel();
+		}
+		if (oldSearchIndexer != null) {
+			// Closes the index once the indexer workers have finished (without blocking the UI thread)
+			oldSearchIndexer.close();
+			this.closingSearchIndexer = oldSearchIndexer;
+		} else if (oldSearchIndex != null) {
 			oldSearchIndex.close();
 		}
-		if (oldFileScanner != null) {
-			oldFileScanner.close();
+	}
+
+	private void awaitSearchIndexClosed() {
+		SearchIndexer checkedClosingSearchIndexer = this.closingSearchIndexer;
+
+		// A still open cached index directory would block re-opening it; in-memory indices may close in parallel
+		if (checkedClosingSearchIndexer != null && SearchIndexCache.isEnabled()) {
+			try {
+				checkedClosingSearchIndexer.awaitClosed();
+			} catch (InterruptedException e) {
+				Exceptions.ignore(e);
+				Thread.currentThread().interrupt();
+			}
 		}
+		this.closingSearchIndexer = null;
 	}
 
 	void stopScan(boolean wait) {
 		FileScanner checkedFileScanner = this.fileScanner;
+		SearchIndexer checkedSearchIndexer = this.searchIndexer;
 
+		if (checkedSearchIndexer != null) {
+			checkedSearchIndexer.cancel();
+		}
 		if (checkedFileScanner != null) {
 			checkedFileScanner.stop(wait);
 		}
@@ -162,40 +208,59 @@ class MainController implements FileScannerStatus {
 
 	@Override
 	public void scanStarted(FileScanner scanner) {
-		if (scanner.equals(this.fileScanner)) {
-			Application.getMain(FileScannerMain.class).runWait(() -> this.ui.sessionRunning(true));
+		ScanStatusDispatcher checkedStatusDispatcher = this.statusDispatcher;
+
+		if (scanner.equals(this.fileScanner) && checkedStatusDispatcher != null) {
+			checkedStatusDispatcher.sessionRunning(true);
 		}
 	}
 
 	@Override
 	public void scanFinished(FileScanner scanner) {
+		SearchIndexer checkedSearchIndexer = this.searchIndexer;
+		ScanStatusDispatcher checkedStatusDispatcher = this.statusDispatcher;
+
 		if (scanner.equals(this.fileScanner)) {
-			Objects.requireNonNull(this.searchIndex).seal();
-			Application.getMain(FileScannerMain.class).runWait(() -> this.ui.sessionRunning(false));
+			if (checkedSearchIndexer != null) {
+				checkedSearchIndexer.seal();
+			}
+			if (checkedStatusDispatcher != null) {
+				checkedStatusDispatcher.sessionRunning(false);
+			}
 		}
 	}
 
 	@Override
 	public void scanProgress(FileScanner scanner, FileScannerProgress progress) {
-		if (scanner.equals(this.fileScanner)) {
-			long indexSize = Objects.requireNonNull(this.searchIndex).getIndexSize();
+		SearchIndex checkedSearchIndex = this.searchIndex;
+		ScanStatusDispatcher checkedStatusDispatcher = this.statusDispatcher;
 
-			Application.getMain(FileScannerMain.class).runWait(() -> this.ui.sessionProgress(progress, indexSize));
+		if (scanner.equals(this.fileScanner) && checkedSearchIndex != null && checkedStatusDispatcher != null) {
+			checkedStatusDispatcher.sessionProgress(progress, checkedSearchIndex.getStats());
 		}
 	}
 
 	@Override
 	public void scanResult(FileScanner scanner, FileScannerResult result) {
+		SearchIndexer checkedSearchIndexer = this.searchIndexer;
+		ScanStatusDispatcher checkedStatusDispatcher = this.statusDispatcher;
+
 		if (scanner.equals(this.fileScanner)) {
-			Objects.requireNonNull(this.searchIndex).addResult(result);
-			Application.getMain(FileScannerMain.class).runWait(() -> this.ui.sessionResult(result));
+			if (checkedSearchIndexer != null) {
+				checkedSearchIndexer.addResult(result);
+			}
+			if (checkedStatusDispatcher != null) {
+				checkedStatusDispatcher.sessionResult(result);
+			}
 		}
 	}
 
 	@Override
 	public void scanException(FileScanner scanner, Exception cause) {
-		if (scanner.equals(this.fileScanner)) {
-			Application.getMain(FileScannerMain.class).runWait(() -> this.ui.sessionException(cause));
+		ScanStatusDispatcher checkedStatusDispatcher = this.statusDispatcher;
+
+		if (scanner.equals(this.fileScanner) && checkedStatusDispatcher != null) {
+			checkedStatusDispatcher.sessionException(cause);
 		}
 	}
 
@@ -17,13 +17,16 @@
 package de.carne.filescanner.swt.main;
 
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.SortedMap;
-import java.util.concurrent.CancellationException;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -62,6 +65,8 @@ import de.carne.filescanner.engine.spi.FileScannerResultRenderHandlerFactory.Han
 import de.carne.filescanner.engine.transfer.FileScannerResultExportHandler;
 import de.carne.filescanner.engine.transfer.FileScannerResultRenderHandler;
 import de.carne.filescanner.swt.ModuleManifestInfos;
+import de.carne.filescanner.swt.export.BulkExportDialog;
+import de.carne.filescanner.swt.export.BulkExportOptions;
 import de.carne.filescanner.swt.export.ExportDialog;
 import de.carne.filescanner.swt.export.ExportOptions;
 import de.carne.filescanner.swt.preferences.Config;
@@ -120,7 +125,8 @@ public class MainUI extends ShellUserInterface {
 	private final Clipboard clipboard;
 	private ClipboardContentHolder clipboardContentHolder = ClipboardContentHolder.KEEP;
 	private SearchState searchState = SearchState.DEFAULT;
-	private final ExecutorService executor = Executors.newSingleThreadExecutor();
+	private final BackgroundTasks backgroundTasks = new BackgroundTasks(this::backgroundTasksStatus,
+			this::unexpectedException);
 	private final Late<MainController> controllerHolder = new Late<>();
 	private final Late<Text> searchQueryHolder = new Late<>();
 	private final Late<Tree> resultTreeHolder = new Late<>();
@@ -128,6 +134,7 @@ public class MainUI extends ShellUserInterface {
 	private final Late<InputView> inputViewHolder = new Late<>();
 	private final Late<ProgressBar> sessionProgressHolder = new Late<>();
 	private final Late<Label> sessionStatusHolder = new Late<>();
+	private final Late<ProgressBar> tasksProgressHolder = new Late<>();
 	private final Late<RuntimeInfo> runtimeInfoHolder = new Late<>();
 	private final Late<Menu> copyObjectMenuHolder = new Late<>();
 	private final Late<Menu> copyObjectToolHolder = new Late<>();
@@ -137,6 +144,7 @@ public class MainUI extends ShellUserInterface {
 	private final UICommandSet sessionCommands = new UICommandSet();
 	private final UICommandSet resultSelectionCommands = new UICommandSet();
 	private final Property<@Nullable FileScannerResult> resultSelection = new Property<>(null);
+	private final Set<FileScannerResult> realizedResults = Collections.newSetFromMap(new IdentityHashMap<>());
 
 	/**
 	 * Constructs a new {@linkplain MainUI} instance.
@@ -208,6 +216,7 @@ public class MainUI extends ShellUserInterface {
 
 	void resetSession(boolean session) {
 		this.resultTreeHolder.get().removeAll();
+		this.realizedResults.clear();
 		this.sessionProgressHolder.get().setSelection(0);
 		this.sessionStatusHolder.get().setText("");
 		this.sessionCommands.setEnabled(session);
@@ -221,7 +230,7 @@ public class MainUI extends ShellUserInterface {
 		}
 	}
 
-	void sessionProgress(FileScannerProgress progress, long indexSize) {
+	void sessionProgress(FileScannerProgress progress, SearchIndexStats indexStats) {
 		if (!root().isDisposed()) {
 			this.sessionProgressHolder.get().setSelection(progress.scanProgress());
 
@@ -230,10 +239,14 @@ public class MainUI extends ShellUserInterface {
 			long scanRate = progress.scanRate();
 			String statusRate = (scanRate >= 0 ? memoryUnitFormat.format(progress.scanRate()) : "\u221e");
 			int[] elapsedValues = elapsedValues(progress.scanTimeNanos());
+			long indexSize = indexStats.indexSize();
 			String statusIndexSize = (indexSize >= 0 ? memoryUnitFormat.format(indexSize) : "\u221e");
+			String statusIndexBuffer = memoryUnitFormat.format(indexStats.ramBytesUsed());
 
-			this.sessionStatusHolder.get().setText(MainI18N.i18nTextSessionStatus(statusScanned, statusRate,
-					elapsedValues[0], elapsedValues[1], elapsedValues[2], elapsedValues[3], statusIndexSize));
+			this.sessionStatusHolder.get()
+					.setText(MainI18N.i18nTextSessionStatus(statusScanned, statusRate, elapsedValues[0],
+							elapsedValues[1], elapsedValues[2], elapsedValues[3], statusIndexSize,
+							indexStats.documentCount(), indexStats.pendingDocumentCount(), statusIndexBuffer));
 		}
 	}
 
@@ -256,21 +269,53 @@ public class MainUI extends ShellUserInterface {
 		return new int[] { h, m, s, ms };
 	}
 
-	void sessionResult(FileScannerResult result) {
-		if (!root().isDisposed()) {
-			TreeItem resultItem = result.getData(TreeItem.class, TreeItem.class);
-
-			if (resultItem != null) {
-				if (resultItem.getParentItem() == null && resultItem.getItemCount() == 0) {
-					resultItem.setItemCount(result.childrenCount());
-					resultItem.setExpanded(true);
-				} else {
-					resultItem.setItemCount(result.childrenCount());
+	void sessionResults(Collection<FileScannerResult> results) {
+		if (!root().isDisposed() && !results.isEmpty()) {
+			// Only the reported results and their parents may have changed; of these only the ones already realized
+			// as tree items need a refresh (all others are populated on demand)
+			long refreshStart = System.nanoTime();
+			Set<FileScannerResult> visitedResults = Collections.newSetFromMap(new IdentityHashMap<>());
+			List<FileScannerResult> refreshResults = new ArrayList<>();
+
+			for (FileScannerResult result : results) {
+				FileScannerResult visitResult = result;
+
+				while (visitResult != null && visitedResults.add(visitResult)) {
+					if (this.realizedResults.contains(visitResult)) {
+						refreshResults.add(visitResult);
+					}
+					visitResult = visitResult.parent();
 				}
-				for (FileScannerResult resultChild : result.children()) {
-					sessionResult(resultChild);
+			}
+
+			Tree resultTree = this.resultTreeHolder.get();
+			int refreshCount = 0;
+
+			for (FileScannerResult result : refreshResults) {
+				TreeItem resultItem = result.getData(TreeItem.class, TreeItem.class);
+
+				if (resultItem != null && !resultItem.isDisposed()) {
+					int resultItemCount = resultItem.getItemCount();
+					int resultChildrenCount = result.childrenCount();
+
+					if (resultItemCount != resultChildrenCount) {
+						if (refreshCount == 0) {
+							resultTree.setRedraw(false);
+						}
+						resultItem.setItemCount(resultChildrenCount);
+						if (resultItem.getParentItem() == null && resultItemCount == 0) {
+							resultItem.setExpanded(true);
+						}
+						refreshCount++;
+					}
 				}
 			}
+			if (refreshCount > 0) {
+				resultTree.setRedraw(true);
+			}
+			LOG.debug("Refreshed {0} of {1} affected result tree items ({2} results reported) in {3} ms",
+					refreshCount, refreshResults.size(), results.size(),
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - refreshStart));
 		}
 	}
 
@@ -295,6 +340,7 @@ public class MainUI extends ShellUserInterface {
 		rootResultItem.setItemCount(rootResult.childrenCount());
 		rootResultItem.setData(rootResult);
 		rootResult.setData(TreeItem.class, rootResultItem);
+		this.realizedResults.add(rootResult);
 	}
 
 	private void onSetResultTreeItemData(Event event) {
@@ -316,6 +362,7 @@ public class MainUI extends ShellUserInterface {
 		item.setItemCount(result.childrenCount());
 		item.setData(result);
 		result.setData(TreeItem.class, item);
+		this.realizedResults.add(result);
 	}
 
 	private void decorateResultTreeItem(TreeItem item, FileScannerResult result, boolean root) {
@@ -414,7 +461,7 @@ public class MainUI extends ShellUserInterface {
 		LOG.info("Disposing Main UI...");
 
 		this.resultSelection.set(null);
-		this.executor.shutdownNow();
+		this.backgroundTasks.close();
 		UserPreferences.get().removeConsumer(this.configConsumer);
 		this.controllerHolder.get().close();
 		this.clipboardContentHolder.dispose(this.clipboard);
@@ -458,23 +505,43 @@ public class MainUI extends ShellUserInterface {
 				if (exportOptions != null) {
 					ProgressUI progress = new ProgressUI(new Shell(root(), ProgressUI.STYLE));
 
-					progress.open();
-					progress.run(this.executor.submit(new ExportTask(progress, exportOptions, result))).get();
+					this.backgroundTasks.start(progress, new ExportTask(progress, exportOptions, result), ignored -> {
+						// Nothing to do; export task logs its result
+					});
 				}
 			}
-		} catch (CancellationException e) {
-			Exceptions.ignore(e);
-		} catch (ExecutionException e) {
-			Throwable cause = Exceptions.getCause(e);
+		} catch (Exception e) {
+			unexpectedException(e);
+		}
+	}
+
+	private void onExportAllSelected() {
+		try {
+			FileScannerResult result = this.resultViewHolder.get().getResult();
+
+			if (result != null) {
+				BulkExportDialog exportDialog = new BulkExportDialog(get());
+				BulkExportOptions exportOptions = exportDialog.open(result);
+
+				if (exportOptions != null) {
+					ProgressUI progress = new ProgressUI(new Shell(root(), ProgressUI.STYLE));
 
-			if (!(cause instanceof StoppedException)) {
-				unexpectedException(cause);
+					this.backgroundTasks.start(progress, new BulkExportTask(progress, exportOptions, result),
+							this::bulkExportFinished);
+				}
 			}
 		} catch (Exception e) {
 			unexpectedException(e);
 		}
 	}
 
+	private void bulkExportFinished(BulkExportTask.Summary summary) {
+		Notification.information(root()).withText(MainI18N.i18nTextBulkExportFinished())
+				.withMessage(MainI18N.i18nMessageBulkExportFinished(summary.exportedCount(), summary.failedCount(),
+						summary.exportDir()))
+				.open();
+	}
+
 	private void onCopyObjectToolSelected(SelectionEvent event) {
 		if (event.detail == SWT.ARROW) {
 			ToolItem toolItem = Check.isInstanceOf(event.widget, ToolItem.class);
@@ -550,23 +617,32 @@ public class MainUI extends ShellUserInterface {
 		try {
 			ProgressUI progress = new ProgressUI(new Shell(root(), ProgressUI.STYLE));
 
-			progress.open();
-			progress.run(this.executor.submit(new ClipboardPrepareTransferTask(progress, handler))).get();
+			this.backgroundTasks.start(progress, new ClipboardPrepareTransferTask(progress, handler),
+					ignored -> transferClipboard(handler));
+		} catch (Exception e) {
+			unexpectedException(e);
+		}
+	}
+
+	private void transferClipboard(ClipboardTransferHandler handler) {
+		try {
 			this.clipboardContentHolder.dispose(this.clipboard);
 			this.clipboardContentHolder = handler.transfer(this.clipboard);
-		} catch (CancellationException e) {
-			Exceptions.ignore(e);
-		} catch (ExecutionException e) {
-			Throwable cause = Exceptions.getCause(e);
-
-			if (!(cause instanceof StoppedException)) {
-				unexpectedException(cause);
-			}
 		} catch (Exception e) {
 			unexpectedException(e);
 		}
 	}
 
+	private void backgroundTasksStatus(int taskCount, int progress) {
+		ProgressBar tasksProgress = this.tasksProgressHolder.get();
+
+		if (!tasksProgress.isDisposed()) {
+			tasksProgress.setEnabled(taskCount > 0);
+			tasksProgress.setSelection(Math.max(progress, 0));
+			tasksProgress.setToolTipText(MainI18N.i18nTooltipBackgroundTasks(taskCount));
+		}
+	}
+
 	private void onGotoNextSelected() {
 		try {
 			FileScannerResult from = null;
@@ -847,6 +923,9 @@ public class MainUI extends ShellUserInterface {
 		menu.withImage(this.resources.getImage(Images.class, Images.IMAGE_EXPORT_OBJECT16));
 		menu.onSelected(this::onExportObjectSelected);
 		this.resultSelectionCommands.add(menu.currentItem());
+		menu.addItem(SWT.PUSH).withText(MainI18N.i18nMenuFileExportAll());
+		menu.onSelected(this::onExportAllSelected);
+		this.resultSelectionCommands.add(menu.currentItem());
 		if (PlatformIntegration.isCocoa()) {
 			PlatformIntegration.cocoaAddPreferencesSelectionAction(display, this::onPreferencesSelected);
 			PlatformIntegration.cocoaAddQuitSelectionAction(display, this::close);
@@ -934,6 +1013,9 @@ public class MainUI extends ShellUserInterface {
 		menu.withImage(this.resources.getImage(Images.class, Images.IMAGE_EXPORT_OBJECT16));
 		menu.onSelected(this::onExportObjectSelected);
 		this.resultSelectionCommands.add(menu.currentItem());
+		menu.addItem(SWT.PUSH).withText(MainI18N.i18nMenuFileExportAll());
+		menu.onSelected(this::onExportAllSelected);
+		this.resultSelectionCommands.add(menu.currentItem());
 		resultTree.setMenu(menu.get());
 	}
 
@@ -1064,6 +1146,8 @@ public class MainUI extends ShellUserInterface {
 				SWT.HORIZONTAL | SWT.SMOOTH);
 		LabelBuilder sessionStatus = session.addLabelChild(SWT.HORIZONTAL);
 		CompositeBuilder<Composite> runtime = status.addCompositeChild(SWT.NONE);
+		ControlBuilder<ProgressBar> tasksProgress = runtime.addControlChild(ProgressBar.class,
+				SWT.HORIZONTAL | SWT.SMOOTH);
 		ControlBuilder<RuntimeInfo> runtimeHeap = runtime.addControlChild(RuntimeInfo.class, SWT.BORDER);
 		ToolBarBuilder runtimeTools = ToolBarBuilder.horizontal(runtime, SWT.FLAT);
 
@@ -1073,6 +1157,9 @@ public class MainUI extends ShellUserInterface {
 				.withToolTipText(MainI18N.i18nTooltipStopScan());
 		sessionTools.onSelected(() -> controller.stopScan(false));
 
+		tasksProgress.get().setEnabled(false);
+		tasksProgress.get().setToolTipText(MainI18N.i18nTooltipBackgroundTasks(0));
+
 		runtimeHeap.get().setTimer(500);
 
 		runtimeTools.addItem(SWT.PUSH);
@@ -1085,7 +1172,8 @@ public class MainUI extends ShellUserInterface {
 		GridLayoutBuilder.data().apply(sessionProgress);
 		GridLayoutBuilder.data(GridData.FILL_HORIZONTAL).apply(sessionStatus);
 
-		GridLayoutBuilder.layout(2).margin(0, 0).apply(runtime);
+		GridLayoutBuilder.layout(3).margin(0, 0).apply(runtime);
+		GridLayoutBuilder.data().apply(tasksProgress);
 		GridLayoutBuilder.data().apply(runtimeHeap);
 		GridLayoutBuilder.data().apply(runtimeTools);
 
@@ -1100,6 +1188,7 @@ public class MainUI extends ShellUserInterface {
 		this.sessionProgressHolder.set(sessionProgress.get());
 		this.sessionCommands.add(sessionTools.currentItem());
 		this.sessionStatusHolder.set(sessionStatus.get());
+		this.tasksProgressHolder.set(tasksProgress.get());
 		this.runtimeInfoHolder.set(runtimeHeap.get());
 
 		status.lock(true).pack();
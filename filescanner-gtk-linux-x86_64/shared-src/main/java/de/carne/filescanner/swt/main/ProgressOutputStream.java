@@ -22,9 +22,23 @@ import java.io.OutputStream;
 
 import org.eclipse.jdt.annotation.Nullable;
 
+import de.carne.util.SystemProperties;
+
+/**
+ * {@linkplain FilterOutputStream} reporting the written bytes to a {@linkplain ProgressCallback}.
+ * <p>
+ * Small writes are accumulated and reported in batches of at least {@code ProgressOutputStream.reportThreshold} bytes
+ * (as well as on flush and close), to keep the reporting overhead low for streams written byte by byte. A stop
+ * request is signaled by a {@linkplain StoppedException} on the next write; flushing and closing never fail because of
+ * it.
+ */
 class ProgressOutputStream extends FilterOutputStream {
 
+	private static final long REPORT_THRESHOLD = SystemProperties.longValue(ProgressOutputStream.class,
+			".reportThreshold", 64 * 1024);
+
 	private final ProgressCallback progress;
+	private long pendingProgress = 0;
 
 	ProgressOutputStream(ProgressCallback progress, OutputStream out) {
 		super(out);
@@ -34,27 +48,51 @@ class ProgressOutputStream extends FilterOutputStream {
 	@Override
 	public void write(int b) throws IOException {
 		this.out.write(b);
-		if (!this.progress.addProgress(1)) {
-			throw new StoppedException();
-		}
+		addProgress(1);
 	}
 
 	@Override
 	public void write(byte @Nullable [] b) throws IOException {
 		this.out.write(b);
-		if (!this.progress.addProgress(b != null ? b.length : 0)) {
-			throw new StoppedException();
-		}
+		addProgress(b != null ? b.length : 0);
 	}
 
 	@Override
 	public void write(byte @Nullable [] b, int off, int len) throws IOException {
 		this.out.write(b, off, len);
-		if (!this.progress.addProgress(len)) {
+		addProgress(len);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		super.flush();
+		// No stop check here; FilterOutputStream.close() flushes as well
+		reportProgress();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			super.close();
+		} finally {
+			reportProgress();
+		}
+	}
+
+	private void addProgress(long progressDelta) throws StoppedException {
+		this.pendingProgress += progressDelta;
+		if (this.pendingProgress >= REPORT_THRESHOLD && !reportProgress()) {
 			throw new StoppedException();
 		}
 	}
 
+	private boolean reportProgress() {
+		long reportedProgress = this.pendingProgress;
+
+		this.pendingProgress = 0;
+		return reportedProgress <= 0 || this.progress.addProgress(reportedProgress);
+	}
+
 	@Override
 	public String toString() {
 		return this.out.toString();
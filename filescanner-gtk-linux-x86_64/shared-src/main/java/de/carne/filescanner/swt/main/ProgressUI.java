@@ -17,8 +17,10 @@
 package de.carne.filescanner.swt.main;
 
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.layout.RowData;
 import org.eclipse.swt.widgets.ProgressBar;
 import org.eclipse.swt.widgets.Shell;
@@ -38,19 +40,22 @@ import de.carne.util.Late;
 
 class ProgressUI extends ShellUserInterface implements ProgressCallback {
 
-	public static final int STYLE = SWT.TOOL | SWT.APPLICATION_MODAL;
+	public static final int STYLE = SWT.TOOL | SWT.MODELESS;
 
-	private static final long UPDATE_FREQUENCY = 500l * 1000l * 1000l;
+	private static final int CASCADE_OFFSET = 24;
+
+	private static final int UPDATE_INTERVAL = 500;
 
 	private final ResourceTracker resources;
-	private long total = -1;
-	private long progress = 0;
-	private long lastUpdateNanos = System.nanoTime();
-	private boolean stopped = false;
+	private volatile long total = -1;
+	// Progress is reported by the task thread and sampled by the UI thread; keep writes uncontended
+	private final LongAdder progress = new LongAdder();
+	private volatile boolean stopped = false;
+	private volatile boolean done = false;
 	private Late<ToolItem> stopCommandHolder = new Late<>();
 	private Late<ProgressBar> determinateProgressHolder = new Late<>();
 	private Late<ProgressBar> indeterminateProgressHolder = new Late<>();
-	private Late<Future<Void>> taskHolder = new Late<>();
+	private Late<Future<?>> taskHolder = new Late<>();
 
 	public ProgressUI(Shell shell) {
 		super(shell);
@@ -59,69 +64,87 @@ class ProgressUI extends ShellUserInterface implements ProgressCallback {
 
 	@Override
 	public void open() {
+		open(0);
+	}
+
+	public void open(int cascadeIndex) {
 		ShellBuilder rootBuilder = buildRoot();
 
 		rootBuilder.pack();
 		rootBuilder.position(SWT.CENTER, SWT.CENTER);
 
 		Shell root = rootBuilder.get();
+		Point location = root.getLocation();
+		int cascadeOffset = (cascadeIndex % 8) * CASCADE_OFFSET;
 
+		root.setLocation(location.x + cascadeOffset, location.y + cascadeOffset);
 		root.open();
+		root.getDisplay().timerExec(UPDATE_INTERVAL, this::onUpdateTimer);
+	}
+
+	public void setTask(Future<?> task) {
+		this.taskHolder.set(task);
+	}
+
+	public boolean isStopped() {
+		return this.stopped;
+	}
+
+	public long total() {
+		return this.total;
 	}
 
-	public Future<Void> run(Future<Void> taskFuture) {
-		this.taskHolder.set(taskFuture);
-		super.run();
-		return taskFuture;
+	public long progress() {
+		return this.progress.sum();
 	}
 
 	@Override
-	public synchronized void setTotal(long total) {
+	public void setTotal(long total) {
 		this.total = total;
 	}
 
 	@Override
-	public synchronized boolean addProgress(long progressDelta) {
-		this.progress += progressDelta;
+	public boolean addProgress(long progressDelta) {
+		this.progress.add(progressDelta);
+		return !this.stopped;
+	}
 
-		if (this.total > 0) {
-			long updateNanos = System.nanoTime();
+	private void onUpdateTimer() {
+		if (root().isDisposed()) {
+			// Progress window has been closed without the task being done
+			this.stopped = this.stopped || !this.done;
+		} else {
+			long currentTotal = this.total;
 
-			if ((updateNanos - this.lastUpdateNanos) >= UPDATE_FREQUENCY) {
-				this.lastUpdateNanos = updateNanos;
-				Application.getMain(FileScannerMain.class).runNoWait(this::updateProgressUI);
+			if (currentTotal > 0) {
+				updateProgressUI(currentTotal);
 			}
+			root().getDisplay().timerExec(UPDATE_INTERVAL, this::onUpdateTimer);
 		}
-		return !this.stopped;
 	}
 
-	private synchronized void updateProgressUI() {
-		this.stopped = root().isDisposed();
-		if (!this.stopped) {
-			ProgressBar determinateProgress = this.determinateProgressHolder.get();
+	private void updateProgressUI(long currentTotal) {
+		ProgressBar determinateProgress = this.determinateProgressHolder.get();
 
-			if (!determinateProgress.isVisible()) {
-				determinateProgress.setVisible(true);
-				Check.isInstanceOf(determinateProgress.getLayoutData(), RowData.class).exclude = false;
+		if (!determinateProgress.isVisible()) {
+			determinateProgress.setVisible(true);
+			Check.isInstanceOf(determinateProgress.getLayoutData(), RowData.class).exclude = false;
 
-				ProgressBar indeterminateProgress = this.indeterminateProgressHolder.get();
+			ProgressBar indeterminateProgress = this.indeterminateProgressHolder.get();
 
-				indeterminateProgress.setVisible(false);
-				Check.isInstanceOf(indeterminateProgress.getLayoutData(), RowData.class).exclude = true;
-				root().layout();
-			}
+			indeterminateProgress.setVisible(false);
+			Check.isInstanceOf(indeterminateProgress.getLayoutData(), RowData.class).exclude = true;
+			root().layout();
+		}
 
-			int progressValue = 0;
+		int progressValue = (int) ((Math.min(this.progress.sum(), currentTotal) * 100) / currentTotal);
 
-			if (this.total > 0) {
-				progressValue = (int) ((this.progress * 100) / this.total);
-			}
-			determinateProgress.setSelection(progressValue);
-		}
+		determinateProgress.setSelection(progressValue);
 	}
 
 	@Override
 	public void done() {
+		this.done = true;
 		Application.getMain(FileScannerMain.class).runNoWait(this::closeProgressUI);
 	}
 
@@ -132,6 +155,7 @@ class ProgressUI extends ShellUserInterface implements ProgressCallback {
 	}
 
 	private void onStopSelected() {
+		this.stopped = true;
 		this.taskHolder.get().cancel(true);
 		this.stopCommandHolder.get().setEnabled(false);
 		root().close();
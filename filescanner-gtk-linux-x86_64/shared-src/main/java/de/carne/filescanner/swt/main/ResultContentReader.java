@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.filescanner.swt.main;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.carne.filescanner.engine.FileScannerResult;
+import de.carne.filescanner.engine.transfer.RenderOutput;
+import de.carne.filescanner.engine.transfer.RenderStyle;
+import de.carne.filescanner.engine.transfer.renderer.PlainTextRenderer;
+import de.carne.util.Exceptions;
+import de.carne.util.SystemProperties;
+import de.carne.util.logging.Log;
+
+/**
+ * {@linkplain Reader} providing the plain text content of a {@linkplain FileScannerResult}.
+ * <p>
+ * The result is rendered on the reading thread during the first read access. As the renderer pushes its output, the
+ * rendered text is buffered completely; to bound the memory used per result, rendering stops once the buffer has
+ * reached its maximum size (and the remaining text is not indexed).
+ */
+class ResultContentReader extends Reader {
+
+	private static final Log LOG = new Log();
+
+	private static final int MAX_CONTENT_SIZE = Math.max(
+			SystemProperties.intValue(ResultContentReader.class, ".maxContentSize", 1024 * 1024), 1);
+
+	private final FileScannerResult result;
+	@Nullable
+	private StringBuilder content = null;
+	private int contentPosition = 0;
+
+	ResultContentReader(FileScannerResult result) {
+		this.result = result;
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		StringBuilder checkedContent = getContent();
+		int remaining = checkedContent.length() - this.contentPosition;
+		int read;
+
+		if (remaining > 0) {
+			read = Math.min(remaining, len);
+			checkedContent.getChars(this.contentPosition, this.contentPosition + read, cbuf, off);
+			this.contentPosition += read;
+		} else {
+			read = (len > 0 ? -1 : 0);
+		}
+		return read;
+	}
+
+	private StringBuilder getContent() throws IOException {
+		StringBuilder checkedContent = this.content;
+
+		if (checkedContent == null) {
+			checkedContent = this.content = new StringBuilder();
+			try (PlainTextRenderer renderer = new PlainTextRenderer(new ContentWriter(checkedContent))) {
+				renderer.emitText(0, RenderStyle.NORMAL, this.result.name(), true);
+				RenderOutput.render(this.result, renderer, null, 0);
+			} catch (ContentLimitException e) {
+				Exceptions.ignore(e);
+				LOG.debug("Content of result ''{0}'' truncated to {1} characters", this.result, MAX_CONTENT_SIZE);
+			} catch (IOException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new IOException(e);
+			}
+		}
+		return checkedContent;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.content = null;
+	}
+
+	private static class ContentWriter extends Writer {
+
+		private final StringBuilder buffer;
+
+		ContentWriter(StringBuilder buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public void write(int c) throws IOException {
+			checkedLength(1);
+			this.buffer.append((char) c);
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			int checkedLen = checkedLength(len);
+
+			this.buffer.append(cbuf, off, checkedLen);
+			checkLimit(checkedLen, len);
+		}
+
+		@Override
+		public void write(String str, int off, int len) throws IOException {
+			int checkedLen = checkedLength(len);
+
+			this.buffer.append(str, off, off + checkedLen);
+			checkLimit(checkedLen, len);
+		}
+
+		private int checkedLength(int len) throws ContentLimitException {
+			int available = MAX_CONTENT_SIZE - this.buffer.length();
+
+			if (available <= 0) {
+				throw new ContentLimitException();
+			}
+			return Math.min(len, available);
+		}
+
+		private static void checkLimit(int checkedLen, int len) throws ContentLimitException {
+			if (checkedLen < len) {
+				throw new ContentLimitException();
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			// Nothing to do here
+		}
+
+		@Override
+		public void close() throws IOException {
+			// Nothing to do here
+		}
+
+	}
+
+	private static class ContentLimitException extends IOException {
+
+		private static final long serialVersionUID = -3054927613871208145L;
+
+		ContentLimitException() {
+			super("Maximum content size reached");
+		}
+
+	}
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.filescanner.swt.main;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.swt.widgets.Display;
+
+import de.carne.boot.Application;
+import de.carne.filescanner.engine.FileScannerProgress;
+import de.carne.filescanner.engine.FileScannerResult;
+import de.carne.filescanner.swt.FileScannerMain;
+import de.carne.util.SystemProperties;
+
+/**
+ * Dispatches scan status events from the scanner thread to the UI without blocking the scanner.
+ * <p>
+ * Events are queued and delivered in batches by a single UI task. Results reported several times are only delivered
+ * once per batch and only the latest progress and running state is delivered. Batches are delivered at most every
+ * {@code ScanStatusDispatcher.updateInterval} ms.
+ */
+final class ScanStatusDispatcher {
+
+	private static final long UPDATE_INTERVAL = SystemProperties.longValue(ScanStatusDispatcher.class,
+			".updateInterval", 100);
+
+	private final MainUI ui;
+	private final Queue<FileScannerResult> results = new ConcurrentLinkedQueue<>();
+	private final Queue<Exception> exceptions = new ConcurrentLinkedQueue<>();
+	private final AtomicReference<@Nullable ProgressEvent> progress = new AtomicReference<>();
+	private final AtomicReference<@Nullable Boolean> running = new AtomicReference<>();
+	private final AtomicBoolean dispatchScheduled = new AtomicBoolean(false);
+	private long lastDispatchNanos = 0;
+	private boolean cancelled = false;
+
+	ScanStatusDispatcher(MainUI ui) {
+		this.ui = ui;
+	}
+
+	public void sessionRunning(boolean sessionRunning) {
+		this.running.set(sessionRunning);
+		scheduleDispatch();
+	}
+
+	public void sessionProgress(FileScannerProgress sessionProgress, SearchIndexStats indexStats) {
+		this.progress.set(new ProgressEvent(sessionProgress, indexStats));
+		scheduleDispatch();
+	}
+
+	public void sessionResult(FileScannerResult result) {
+		this.results.add(result);
+		scheduleDispatch();
+	}
+
+	public void sessionException(Exception exception) {
+		this.exceptions.add(exception);
+		scheduleDispatch();
+	}
+
+	/**
+	 * Discards all pending and future events.
+	 * <p>
+	 * Must be called from the UI thread.
+	 */
+	public void cancel() {
+		this.cancelled = true;
+		this.results.clear();
+		this.exceptions.clear();
+	}
+
+	private void scheduleDispatch() {
+		if (this.dispatchScheduled.compareAndSet(false, true)) {
+			Application.getMain(FileScannerMain.class).runNoWait(this::scheduleDispatchDelayed);
+		}
+	}
+
+	private void scheduleDispatchDelayed() {
+		long delay = UPDATE_INTERVAL - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.lastDispatchNanos);
+
+		if (delay > 0) {
+			Display.getCurrent().timerExec((int) delay, this::dispatch);
+		} else {
+			dispatch();
+		}
+	}
+
+	private void dispatch() {
+		this.dispatchScheduled.set(false);
+		this.lastDispatchNanos = System.nanoTime();
+		if (this.cancelled) {
+			this.results.clear();
+			this.exceptions.clear();
+		} else {
+			Set<FileScannerResult> resultBatch = Collections.newSetFromMap(new IdentityHashMap<>());
+			FileScannerResult result;
+
+			while ((result = this.results.poll()) != null) {
+				resultBatch.add(result);
+			}
+			if (!resultBatch.isEmpty()) {
+				this.ui.sessionResults(resultBatch);
+			}
+
+			ProgressEvent progressEvent = this.progress.getAndSet(null);
+
+			if (progressEvent != null) {
+				this.ui.sessionProgress(progressEvent.progress, progressEvent.indexStats);
+			}
+
+			Exception exception;
+
+			while ((exception = this.exceptions.poll()) != null) {
+				this.ui.sessionException(exception);
+			}
+
+			Boolean runningEvent = this.running.getAndSet(null);
+
+			if (runningEvent != null) {
+				this.ui.sessionRunning(runningEvent.booleanValue());
+			}
+		}
+	}
+
+	private static class ProgressEvent {
+
+		final FileScannerProgress progress;
+		final SearchIndexStats indexStats;
+
+		ProgressEvent(FileScannerProgress progress, SearchIndexStats indexStats) {
+			this.progress = progress;
+			this.indexStats = indexStats;
+		}
+
+	}
+
+}
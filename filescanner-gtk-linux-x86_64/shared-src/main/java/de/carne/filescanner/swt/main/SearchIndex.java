@@ -22,6 +22,16 @@ import java.io.Reader;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.LowerCaseFilter;
@@ -30,32 +40,50 @@ import org.apache.lucene.analysis.Tokenizer;
 import org.apache.lucene.analysis.util.CharTokenizer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
-import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.ConcurrentMergeScheduler;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SerialMergeScheduler;
+import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.simple.SimpleQueryParser;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.SimpleCollector;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TermRangeQuery;
 import org.apache.lucene.search.TopDocs;
-import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.NIOFSDirectory;
 import org.apache.lucene.util.BytesRef;
 import org.eclipse.jdt.annotation.Nullable;
 
 import de.carne.filescanner.engine.FileScannerResult;
+import de.carne.filescanner.engine.spi.Format;
 import de.carne.io.Closeables;
 import de.carne.nio.file.FileUtil;
 import de.carne.nio.file.attribute.FileAttributes;
 import de.carne.util.Exceptions;
+import de.carne.util.SystemProperties;
 import de.carne.util.logging.Log;
 
 final class SearchIndex implements AutoCloseable {
@@ -70,21 +98,114 @@ final class SearchIndex implements AutoCloseable {
 	private static final Sort SORT_FORWARD = new Sort(new SortField(FIELD_ID, SortField.Type.STRING, false));
 	private static final Sort SORT_BACKWARD = new Sort(new SortField(FIELD_ID, SortField.Type.STRING, true));
 
+	private static final int COMMIT_BATCH_SIZE = SystemProperties.intValue(SearchIndex.class, ".commitBatchSize",
+			1000);
+	private static final long COMMIT_INTERVAL = SystemProperties.longValue(SearchIndex.class, ".commitInterval", 1000);
+	private static final int INDEX_THREADS = Math.max(SystemProperties.intValue(SearchIndex.class, ".indexThreads", 1),
+			1);
+	private static final int RAM_BUFFER_SIZE = SystemProperties.intValue(SearchIndex.class, ".ramBufferSize",
+			(int) IndexWriterConfig.DEFAULT_RAM_BUFFER_SIZE_MB);
+	private static final long STATS_INTERVAL = SystemProperties.longValue(SearchIndex.class, ".statsInterval", 1000);
+	private static final String DIRECTORY_TYPE = SystemProperties.value(SearchIndex.class, ".directoryType",
+			DirectoryType.AUTO.name());
+	private static final long RAM_DIRECTORY_LIMIT = SystemProperties.longValue(SearchIndex.class, ".ramDirectoryLimit",
+			256) * 1024 * 1024;
+	private static final boolean MMAP_PRELOAD = SystemProperties.booleanValue(SearchIndex.class, ".mmapPreload",
+			false);
+
+	@Nullable
 	private final Path indexPath;
-	private final FSDirectory indexDirectory;
+	private final String indexName;
+	private final boolean indexCached;
+	private final Directory indexDirectory;
 	private final Analyzer analyzer;
 	@Nullable
-	private Updater indexUpdater = null;
+	private volatile Updater indexUpdater = null;
 	@Nullable
 	private Searcher indexSearcher = null;
-
-	public SearchIndex() throws IOException {
-		this.indexPath = Files.createTempDirectory(getClass().getSimpleName(),
-				FileAttributes.userDirectoryDefault(FileUtil.tmpDir()));
-		this.indexDirectory = FSDirectory.open(this.indexPath);
+	private final Object statsLock = new Object();
+	private SearchIndexStats stats = SearchIndexStats.NONE;
+	private long statsNanos = 0;
+
+	public SearchIndex(Path inputPath, Collection<Format> formats) throws IOException {
+		DirectoryType directoryType = selectDirectoryType(inputPath);
+
+		if (directoryType == DirectoryType.RAM) {
+			this.indexPath = null;
+			this.indexName = "<memory>";
+			this.indexCached = false;
+			this.indexDirectory = new ByteBuffersDirectory();
+		} else {
+			Path cachedIndexPath = SearchIndexCache.open(inputPath, formats);
+			Path checkedIndexPath;
+
+			if (cachedIndexPath != null) {
+				checkedIndexPath = cachedIndexPath;
+				this.indexCached = true;
+			} else {
+				checkedIndexPath = Files.createTempDirectory(getClass().getSimpleName(),
+						FileAttributes.userDirectoryDefault(FileUtil.tmpDir()));
+				this.indexCached = false;
+			}
+			this.indexPath = checkedIndexPath;
+			this.indexName = checkedIndexPath.toString();
+			if (directoryType == DirectoryType.MMAP) {
+				MMapDirectory mmapDirectory = new MMapDirectory(checkedIndexPath);
+
+				mmapDirectory.setPreload(MMAP_PRELOAD);
+				this.indexDirectory = mmapDirectory;
+			} else {
+				this.indexDirectory = new NIOFSDirectory(checkedIndexPath);
+			}
+		}
 		this.analyzer = new ResultAnalyzer();
 
-		LOG.info("Created search index {0}:''{1}''", this.indexDirectory.getClass().getSimpleName(), this.indexPath);
+		LOG.info("Created search index {0}:''{1}'' (directory type: {2})",
+				this.indexDirectory.getClass().getSimpleName(), this.indexName, directoryType);
+	}
+
+	private static DirectoryType selectDirectoryType(Path inputPath) {
+		DirectoryType directoryType;
+
+		try {
+			directoryType = DirectoryType.valueOf(DIRECTORY_TYPE.toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			LOG.warning(e, "Ignoring invalid search index directory type ''{0}''", DIRECTORY_TYPE);
+
+			directoryType = DirectoryType.AUTO;
+		}
+		if (directoryType == DirectoryType.RAM && SearchIndexCache.isEnabled()) {
+			LOG.notice("Search index cache is not used for in-memory search index");
+		} else if (directoryType == DirectoryType.AUTO) {
+			long inputSize;
+
+			try {
+				inputSize = Files.size(inputPath);
+			} catch (IOException e) {
+				LOG.warning(e, "Failed to determine size of input ''{0}''", inputPath);
+
+				inputSize = Long.MAX_VALUE;
+			}
+			if (!SearchIndexCache.isEnabled() && inputSize <= RAM_DIRECTORY_LIMIT) {
+				directoryType = DirectoryType.RAM;
+			} else if (MMapDirectory.UNMAP_SUPPORTED) {
+				directoryType = DirectoryType.MMAP;
+			} else {
+				directoryType = DirectoryType.NIO;
+			}
+			LOG.info("Selected search index directory type {0} for input ''{1}'' (size: {2})", directoryType,
+					inputPath, inputSize);
+		}
+		return directoryType;
+	}
+
+	/**
+	 * Gets the number of threads to use for concurrently adding results to this index.
+	 *
+	 * @return the number of threads to use for concurrently adding results to this index.
+	 */
+	public int indexThreads() {
+		return INDEX_THREADS;
 	}
 
 	public void addResult(FileScannerResult result) {
@@ -92,38 +213,27 @@ final class SearchIndex implements AutoCloseable {
 			@SuppressWarnings("resource") Updater updater = getUpdater();
 
 			addResultHelper(updater, result, true);
-			updater.commit();
+			updater.maybeCommit();
 		} catch (Exception e) {
-			LOG.error(e, "Failed to add result to search index ''{0}''", this.indexPath);
+			LOG.error(e, "Failed to add result to search index ''{0}''", this.indexName);
 		}
 	}
 
 	private void addResultHelper(Updater updater, FileScannerResult result, boolean checkForUpdate) throws IOException {
-		BytesRef resultKey = new BytesRef(result.key());
-		long resultEnd = result.end();
-		Document currentDocument = (checkForUpdate ? updater.getDocument(resultKey) : null);
+		IndexState indexState = updater.indexResult(result, checkForUpdate);
 		boolean processResultChildren;
 		boolean checkChildrenForUpdate;
 
-		if (currentDocument == null) {
-			LOG.debug("Adding result ''{0}'' to search index", result);
-
-			try (PipedResultContent resultContent = new PipedResultContent(result)) {
-				updater.addDocument(buildDocument(resultKey, resultEnd, resultContent));
-			}
+		switch (indexState) {
+		case ADDED:
 			processResultChildren = true;
 			checkChildrenForUpdate = false;
-		} else if (currentDocument.getField(FIELD_END_STORED).numericValue().longValue() != resultEnd) {
-			LOG.debug("Updating result ''{0}'' in search index", result);
-
-			try (PipedResultContent resultContent = new PipedResultContent(result)) {
-				updater.updateDocument(resultKey, buildDocument(resultKey, resultEnd, resultContent));
-			}
+			break;
+		case UPDATED:
 			processResultChildren = true;
 			checkChildrenForUpdate = true;
-		} else {
-			LOG.debug("Result ''{0}'' is already up-to-date in search index", result);
-
+			break;
+		default:
 			processResultChildren = result.type() == FileScannerResult.Type.INPUT;
 			checkChildrenForUpdate = true;
 		}
@@ -134,23 +244,79 @@ final class SearchIndex implements AutoCloseable {
 		}
 	}
 
-	public void seal() {
+	public synchronized void seal() {
+		Updater checkedUpdater = this.indexUpdater;
+		Searcher checkedSearcher = this.indexSearcher;
+
 		try {
-			Closeables.close(this.indexUpdater);
+			if (checkedSearcher != null && checkedSearcher.isNearRealTime()) {
+				this.indexSearcher = null;
+				checkedSearcher.close();
+			}
+			if (checkedUpdater != null) {
+				checkedUpdater.commit();
+				updateStats(System.nanoTime());
+				checkedUpdater.close();
+			}
 		} catch (IOException e) {
-			LOG.error(e, "Failed to close updater for index ''{0}''", this.indexPath);
+			LOG.error(e, "Failed to close updater for index ''{0}''", this.indexName);
 		}
 	}
 
-	public byte @Nullable [] searchFoward(@Nullable FileScannerResult start, String query) throws IOException {
-		return getSearcher().search((start != null ? new BytesRef(start.key()) : null), null, query, SORT_FORWARD);
+	public synchronized byte @Nullable [] searchFoward(@Nullable FileScannerResult start, String query)
+			throws IOException {
+		return getSearcher().search((start != null ? new BytesRef(start.key()) : null), query, true);
 	}
 
-	public byte @Nullable [] searchBackward(@Nullable FileScannerResult start, String query) throws IOException {
-		return getSearcher().search(null, (start != null ? new BytesRef(start.key()) : null), query, SORT_BACKWARD);
+	public synchronized byte @Nullable [] searchBackward(@Nullable FileScannerResult start, String query)
+			throws IOException {
+		return getSearcher().search((start != null ? new BytesRef(start.key()) : null), query, false);
+	}
+
+	/**
+	 * Gets the current index statistics.
+	 * <p>
+	 * The statistics are collected at most every {@code SearchIndex.statsInterval} ms. In between, the previously
+	 * collected values are returned.
+	 *
+	 * @return the current index statistics.
+	 */
+	public SearchIndexStats getStats() {
+		synchronized (this.statsLock) {
+			long now = System.nanoTime();
+
+			if (this.stats == SearchIndexStats.NONE || (now - this.statsNanos) >= STATS_INTERVAL * 1000000l) {
+				updateStats(now);
+			}
+			return this.stats;
+		}
+	}
+
+	private void updateStats(long now) {
+		synchronized (this.statsLock) {
+			long indexSize = getIndexSize();
+			long documentCount = this.stats.documentCount();
+			long ramBytesUsed = 0;
+			long pendingDocumentCount = 0;
+			Updater checkedUpdater = this.indexUpdater;
+
+			if (checkedUpdater != null && checkedUpdater.isOpen()) {
+				try {
+					documentCount = checkedUpdater.documentCount();
+					ramBytesUsed = checkedUpdater.ramBytesUsed();
+					pendingDocumentCount = checkedUpdater.pendingDocumentCount();
+				} catch (AlreadyClosedException e) {
+					Exceptions.ignore(e);
+				}
+			}
+			this.stats = new SearchIndexStats(indexSize, documentCount, ramBytesUsed, pendingDocumentCount);
+			this.statsNanos = now;
+
+			LOG.debug("Search index stats: {0}", this.stats);
+		}
 	}
 
-	public long getIndexSize() {
+	private long getIndexSize() {
 		long indexSize = 0;
 
 		try {
@@ -179,30 +345,26 @@ final class SearchIndex implements AutoCloseable {
 	@Override
 	public synchronized void close() {
 		try {
-			LOG.info("Closing and discarding search index ''{0}''...", this.indexPath);
+			LOG.info("Closing {0} search index ''{1}''...", (this.indexCached ? "cached" : "and discarding"),
+					this.indexName);
 
-			Closeables.closeAll(this.analyzer, this.indexUpdater, this.indexSearcher);
-			FileUtil.delete(this.indexPath);
+			Closeables.closeAll(this.analyzer, this.indexSearcher, this.indexUpdater, this.indexDirectory);
+			Path checkedIndexPath = this.indexPath;
+
+			if (checkedIndexPath != null && !this.indexCached) {
+				FileUtil.delete(checkedIndexPath);
+			}
 		} catch (IOException e) {
-			LOG.error(e, "Failed to close and discard search index ''{0}''", this.indexPath);
+			LOG.error(e, "Failed to close and discard search index ''{0}''", this.indexName);
 		}
 	}
 
-	private Document buildDocument(BytesRef resultKey, long resultEnd, Reader resultContent) {
-		Document document = new Document();
-
-		document.add(new SortedDocValuesField(FIELD_ID, resultKey));
-		document.add(new StoredField(FIELD_KEY_STORED, resultKey));
-		document.add(new StoredField(FIELD_END_STORED, resultEnd));
-		document.add(new TextField(FIELD_CONTENT, resultContent));
-		return document;
-	}
-
 	private synchronized Updater getUpdater() throws IOException {
 		Updater checkedUpdater = this.indexUpdater;
 
 		if (checkedUpdater == null) {
-			checkedUpdater = this.indexUpdater = new Updater(this.indexDirectory, this.analyzer);
+			checkedUpdater = this.indexUpdater = new Updater(this.indexDirectory, this.analyzer,
+					this.indexCached ? OpenMode.CREATE_OR_APPEND : OpenMode.CREATE);
 		}
 		return checkedUpdater;
 	}
@@ -211,63 +373,208 @@ final class SearchIndex implements AutoCloseable {
 		Searcher checkedSearcher = this.indexSearcher;
 
 		if (checkedSearcher == null) {
-			checkedSearcher = this.indexSearcher = new Searcher(this.indexDirectory, this.analyzer);
+			Updater checkedUpdater = this.indexUpdater;
+
+			if (checkedUpdater != null && checkedUpdater.isOpen()) {
+				checkedSearcher = this.indexSearcher = new Searcher(checkedUpdater.newSearcherManager(), true,
+						this.analyzer);
+			} else {
+				checkedSearcher = this.indexSearcher = new Searcher(new SearcherManager(this.indexDirectory, null),
+						false, this.analyzer);
+			}
 		}
 		return checkedSearcher;
 	}
 
+	private enum DirectoryType {
+
+		AUTO,
+
+		RAM,
+
+		MMAP,
+
+		NIO
+
+	}
+
+	private enum IndexState {
+
+		ADDED,
+
+		UPDATED,
+
+		UNCHANGED
+
+	}
+
 	private static class Updater implements Closeable {
 
 		private final IndexWriter indexWriter;
 		private final SearcherManager searcherManager;
+		private final Map<BytesRef, Long> uncommittedEnds = new ConcurrentHashMap<>();
+		private final Object[] resultLocks = new Object[INDEX_THREADS * 16];
+		private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+		private volatile long lastCommitNanos = System.nanoTime();
+		private volatile boolean open = true;
 
-		Updater(FSDirectory indexDirectory, Analyzer analyzer) throws IOException {
+		Updater(Directory indexDirectory, Analyzer analyzer, OpenMode openMode) throws IOException {
 			@SuppressWarnings("resource") IndexWriterConfig config = new IndexWriterConfig(analyzer)
-					.setOpenMode(OpenMode.CREATE).setMergeScheduler(new SerialMergeScheduler());
+					.setOpenMode(openMode).setIndexSort(SORT_FORWARD).setRAMBufferSizeMB(RAM_BUFFER_SIZE)
+					.setMergeScheduler(INDEX_THREADS > 1 ? new ConcurrentMergeScheduler() : new SerialMergeScheduler());
 
 			this.indexWriter = new IndexWriter(indexDirectory, config);
 			this.searcherManager = new SearcherManager(this.indexWriter, null);
+			for (int resultLockIndex = 0; resultLockIndex < this.resultLocks.length; resultLockIndex++) {
+				this.resultLocks[resultLockIndex] = new Object();
+			}
 		}
 
-		@Nullable
-		public Document getDocument(BytesRef resultKey) throws IOException {
-			BooleanQuery.Builder queryBuilder = new BooleanQuery.Builder();
+		public boolean isOpen() {
+			return this.open;
+		}
+
+		public SearcherManager newSearcherManager() throws IOException {
+			return new SearcherManager(this.indexWriter, null);
+		}
+
+		public long documentCount() {
+			return this.indexWriter.getDocStats().numDocs;
+		}
+
+		public long ramBytesUsed() {
+			return this.indexWriter.ramBytesUsed();
+		}
+
+		public long pendingDocumentCount() {
+			return this.uncommittedEnds.size();
+		}
+
+		public IndexState indexResult(FileScannerResult result, boolean checkForUpdate) throws IOException {
+			BytesRef resultKey = new BytesRef(result.key());
+			Lock documentLock = this.commitLock.readLock();
+			IndexState indexState;
+
+			documentLock.lock();
+			try {
+				// Results with the same key are always processed sequentially
+				synchronized (this.resultLocks[(resultKey.hashCode() & 0x7fffffff) % this.resultLocks.length]) {
+					long resultEnd = result.end();
+					long indexedEnd = getIndexedEnd(resultKey, checkForUpdate);
+
+					if (indexedEnd < 0) {
+						LOG.debug("Adding result ''{0}'' to search index", result);
+
+						try (ResultContentReader resultContent = new ResultContentReader(result)) {
+							Document document = buildDocument(resultKey, resultEnd, resultContent);
+
+							if (checkForUpdate) {
+								this.indexWriter.addDocument(document);
+							} else {
+								// The committed index has not been checked; another thread may have added and
+								// committed the result meanwhile, hence replace any existing document
+								this.indexWriter.updateDocument(new Term(FIELD_ID, resultKey), document);
+							}
+						}
+						this.uncommittedEnds.put(resultKey, resultEnd);
+						indexState = IndexState.ADDED;
+					} else if (indexedEnd != resultEnd) {
+						LOG.debug("Updating result ''{0}'' in search index", result);
+
+						try (ResultContentReader resultContent = new ResultContentReader(result)) {
+							this.indexWriter.updateDocument(new Term(FIELD_ID, resultKey),
+									buildDocument(resultKey, resultEnd, resultContent));
+						}
+						this.uncommittedEnds.put(resultKey, resultEnd);
+						indexState = IndexState.UPDATED;
+					} else {
+						LOG.debug("Result ''{0}'' is already up-to-date in search index", result);
+
+						indexState = IndexState.UNCHANGED;
+					}
+				}
+			} finally {
+				documentLock.unlock();
+			}
+			return indexState;
+		}
+
+		private Document buildDocument(BytesRef resultKey, long resultEnd, Reader resultContent) {
+			Document document = new Document();
+
+			document.add(new StringField(FIELD_ID, resultKey, Store.NO));
+			document.add(new SortedDocValuesField(FIELD_ID, resultKey));
+			document.add(new StoredField(FIELD_KEY_STORED, resultKey));
+			document.add(new StoredField(FIELD_END_STORED, resultEnd));
+			document.add(new TextField(FIELD_CONTENT, resultContent));
+			return document;
+		}
 
-			queryBuilder.add(SortedDocValuesField.newSlowExactQuery(FIELD_ID, resultKey), Occur.MUST);
+		private long getIndexedEnd(BytesRef resultKey, boolean checkCommitted) throws IOException {
+			Long uncommittedEnd = this.uncommittedEnds.get(resultKey);
+			long indexedEnd;
 
+			if (uncommittedEnd != null) {
+				indexedEnd = uncommittedEnd.longValue();
+			} else if (checkCommitted) {
+				indexedEnd = getCommittedEnd(resultKey);
+			} else {
+				indexedEnd = -1;
+			}
+			return indexedEnd;
+		}
+
+		private long getCommittedEnd(BytesRef resultKey) throws IOException {
 			IndexSearcher indexSearcher = this.searcherManager.acquire();
-			Document document = null;
+			long committedEnd = -1;
 
 			try {
-				TopDocs searchResult = indexSearcher.search(queryBuilder.build(), 1);
+				TopDocs searchResult = indexSearcher.search(new TermQuery(new Term(FIELD_ID, resultKey)), 1);
 
 				if (searchResult.totalHits.value != 0) {
-					document = indexSearcher.doc(searchResult.scoreDocs[0].doc);
+					Document document = indexSearcher.doc(searchResult.scoreDocs[0].doc);
+
+					committedEnd = document.getField(FIELD_END_STORED).numericValue().longValue();
 				}
 			} finally {
 				this.searcherManager.release(indexSearcher);
 			}
-			return document;
+			return committedEnd;
 		}
 
-		public void addDocument(Document document) throws IOException {
-			this.indexWriter.addDocument(document);
-		}
+		public void maybeCommit() throws IOException {
+			int uncommittedCount = this.uncommittedEnds.size();
 
-		public void updateDocument(BytesRef resultKey, Document document) throws IOException {
-			this.indexWriter.updateDocument(new Term(FIELD_ID, resultKey), document);
+			if (uncommittedCount >= COMMIT_BATCH_SIZE || (uncommittedCount > 0
+					&& (System.nanoTime() - this.lastCommitNanos) >= COMMIT_INTERVAL * 1000000l)) {
+				commit();
+			}
 		}
 
 		public void commit() throws IOException {
+			Lock lock = this.commitLock.writeLock();
+
+			lock.lock();
 			try {
-				this.indexWriter.commit();
+				if (!this.uncommittedEnds.isEmpty()) {
+					LOG.debug("Committing {0} search index changes...", this.uncommittedEnds.size());
+
+					try {
+						this.indexWriter.commit();
+					} finally {
+						this.lastCommitNanos = System.nanoTime();
+						this.searcherManager.maybeRefreshBlocking();
+					}
+					this.uncommittedEnds.clear();
+				}
 			} finally {
-				this.searcherManager.maybeRefresh();
+				lock.unlock();
 			}
 		}
 
 		@Override
 		public void close() throws IOException {
+			this.open = false;
 			Closeables.closeAll(this.searcherManager, this.indexWriter);
 		}
 
@@ -275,32 +582,72 @@ final class SearchIndex implements AutoCloseable {
 
 	private static class Searcher implements Closeable {
 
-		private DirectoryReader indexReader;
+		private final SearcherManager searcherManager;
+		private final boolean nearRealTime;
 		private final SimpleQueryParser queryParser;
 		@Nullable
-		private IndexSearcher cachedIndexSearcher = null;
+		private HitCursor cachedHitCursor = null;
 
-		Searcher(FSDirectory indexDirectory, Analyzer analyzer) throws IOException {
-			this.indexReader = DirectoryReader.open(indexDirectory);
+		Searcher(SearcherManager searcherManager, boolean nearRealTime, Analyzer analyzer) {
+			this.searcherManager = searcherManager;
+			this.nearRealTime = nearRealTime;
 			this.queryParser = new SimpleQueryParser(analyzer, FIELD_CONTENT);
 			this.queryParser.setDefaultOperator(Occur.MUST);
 		}
 
-		public byte @Nullable [] search(@Nullable BytesRef resultKeyFrom, @Nullable BytesRef resultKeyTo,
-				String queryString, Sort sort) throws IOException {
+		public boolean isNearRealTime() {
+			return this.nearRealTime;
+		}
+
+		public byte @Nullable [] search(@Nullable BytesRef start, String queryString, boolean forward)
+				throws IOException {
+			this.searcherManager.maybeRefresh();
+
+			IndexSearcher indexSearcher = this.searcherManager.acquire();
+			byte[] resultKey;
+
+			try {
+				if (this.nearRealTime) {
+					// The reader changes with every commit while the index is being updated; not worth caching
+					resultKey = (forward ? searchRange(indexSearcher, start, null, queryString, SORT_FORWARD)
+							: searchRange(indexSearcher, null, start, queryString, SORT_BACKWARD));
+				} else {
+					HitCursor cursor = getHitCursor(indexSearcher, queryString);
+
+					resultKey = (forward ? cursor.next(start) : cursor.previous(start));
+				}
+			} finally {
+				this.searcherManager.release(indexSearcher);
+			}
+			return resultKey;
+		}
+
+		private byte @Nullable [] searchRange(IndexSearcher indexSearcher, @Nullable BytesRef resultKeyFrom,
+				@Nullable BytesRef resultKeyTo, String queryString, Sort sort) throws IOException {
 			Query query = this.queryParser.parse(queryString);
 			BooleanQuery.Builder queryBuilder = new BooleanQuery.Builder();
 
-			queryBuilder.add(SortedDocValuesField.newSlowRangeQuery(FIELD_ID, resultKeyFrom, resultKeyTo,
-					resultKeyFrom == null, resultKeyTo == null), Occur.MUST);
+			// Let Lucene choose per segment between enumerating the key terms (if the range is selective) and checking
+			// the key doc values of the query's matches only
+			boolean includeFrom = resultKeyFrom == null;
+			boolean includeTo = resultKeyTo == null;
+			Query termRangeQuery = new TermRangeQuery(FIELD_ID, resultKeyFrom, resultKeyTo, includeFrom, includeTo);
+			Query docValuesRangeQuery = SortedDocValuesField.newSlowRangeQuery(FIELD_ID, resultKeyFrom, resultKeyTo,
+					includeFrom, includeTo);
+
+			queryBuilder.add(new IndexOrDocValuesQuery(termRangeQuery, docValuesRangeQuery), Occur.FILTER);
 			queryBuilder.add(query, Occur.MUST);
 
-			IndexSearcher indexSearcher = getIndexSearcher();
-			BooleanQuery searchQuery = queryBuilder.build();
-			TopDocs searchResult = indexSearcher.search(searchQuery, 1, sort);
+			// Only the first hit matters; as the index itself is sorted by key, a forward search stops collecting a
+			// segment after its first match (the default total hits threshold would keep counting up to 1000 matches)
+			TopFieldCollector collector = TopFieldCollector.create(sort, 1, 1);
+
+			indexSearcher.search(queryBuilder.build(), collector);
+
+			TopDocs searchResult = collector.topDocs();
 			byte[] resultKey = null;
 
-			if (searchResult.totalHits.value != 0) {
+			if (searchResult.scoreDocs.length > 0) {
 				Document document = indexSearcher.doc(searchResult.scoreDocs[0].doc);
 				BytesRef storedResultKey = document.getField(FIELD_KEY_STORED).binaryValue();
 
@@ -310,28 +657,161 @@ final class SearchIndex implements AutoCloseable {
 			return resultKey;
 		}
 
+		private HitCursor getHitCursor(IndexSearcher indexSearcher, String queryString) throws IOException {
+			HitCursor cursor = this.cachedHitCursor;
+			IndexReader indexReader = indexSearcher.getIndexReader();
+
+			if (cursor == null || !cursor.matches(queryString, indexReader)) {
+				LOG.debug("Collecting search hits for query ''{0}''...", queryString);
+
+				HitCollector hitCollector = new HitCollector();
+
+				indexSearcher.search(this.queryParser.parse(queryString), hitCollector);
+				cursor = this.cachedHitCursor = new HitCursor(queryString, indexReader, hitCollector.hitKeys());
+
+				LOG.debug("Collected {0} search hits", cursor.size());
+			}
+			return cursor;
+		}
+
 		@Override
 		public void close() throws IOException {
-			this.indexReader.close();
+			this.searcherManager.close();
+		}
+
+	}
+
+	private static class HitCollector extends SimpleCollector {
+
+		private final List<BytesRef> hitKeys = new ArrayList<>();
+		@Nullable
+		private SortedDocValues leafIds = null;
+
+		HitCollector() {
+			// Nothing to do here
+		}
+
+		public List<BytesRef> hitKeys() {
+			return this.hitKeys;
+		}
+
+		@Override
+		public ScoreMode scoreMode() {
+			return ScoreMode.COMPLETE_NO_SCORES;
+		}
+
+		@Override
+		protected void doSetNextReader(LeafReaderContext context) throws IOException {
+			this.leafIds = DocValues.getSorted(context.reader(), FIELD_ID);
+		}
+
+		@Override
+		public void collect(int doc) throws IOException {
+			SortedDocValues checkedLeafIds = this.leafIds;
+
+			if (checkedLeafIds != null && checkedLeafIds.advanceExact(doc)) {
+				this.hitKeys.add(BytesRef.deepCopyOf(checkedLeafIds.lookupOrd(checkedLeafIds.ordValue())));
+			}
+		}
+
+	}
+
+	/**
+	 * Sorted list of all result keys matching a query. The keys are stored packed into a single byte array.
+	 */
+	private static class HitCursor {
+
+		private final String queryString;
+		private final IndexReader indexReader;
+		private final byte[] keyBytes;
+		private final int[] keyOffsets;
+
+		HitCursor(String queryString, IndexReader indexReader, List<BytesRef> hitKeys) {
+			this.queryString = queryString;
+			this.indexReader = indexReader;
+			hitKeys.sort(null);
+
+			int keyBytesLength = 0;
+
+			for (BytesRef hitKey : hitKeys) {
+				keyBytesLength += hitKey.length;
+			}
+			this.keyBytes = new byte[keyBytesLength];
+			this.keyOffsets = new int[hitKeys.size() + 1];
+
+			int keyOffset = 0;
+			int keyIndex = 0;
+
+			for (BytesRef hitKey : hitKeys) {
+				System.arraycopy(hitKey.bytes, hitKey.offset, this.keyBytes, keyOffset, hitKey.length);
+				this.keyOffsets[keyIndex] = keyOffset;
+				keyOffset += hitKey.length;
+				keyIndex++;
+			}
+			this.keyOffsets[keyIndex] = keyOffset;
 		}
 
-		private synchronized IndexSearcher getIndexSearcher() throws IOException {
-			DirectoryReader newIndexReader = DirectoryReader.openIfChanged(this.indexReader);
+		public boolean matches(String checkQueryString, IndexReader checkIndexReader) {
+			return this.queryString.equals(checkQueryString) && this.indexReader == checkIndexReader;
+		}
+
+		public int size() {
+			return this.keyOffsets.length - 1;
+		}
 
-			if (newIndexReader != null) {
-				DirectoryReader oldIndexReader = this.indexReader;
+		public byte @Nullable [] next(@Nullable BytesRef start) {
+			int keyIndex = (start != null ? upperBound(start) : 0);
+
+			return (keyIndex < size() ? key(keyIndex) : null);
+		}
+
+		public byte @Nullable [] previous(@Nullable BytesRef start) {
+			int keyIndex = (start != null ? lowerBound(start) : size()) - 1;
+
+			return (keyIndex >= 0 ? key(keyIndex) : null);
+		}
 
-				this.indexReader = newIndexReader;
-				this.cachedIndexSearcher = null;
-				oldIndexReader.close();
+		private byte[] key(int keyIndex) {
+			return Arrays.copyOfRange(this.keyBytes, this.keyOffsets[keyIndex], this.keyOffsets[keyIndex + 1]);
+		}
+
+		private int compareKey(int keyIndex, BytesRef key) {
+			return Arrays.compareUnsigned(this.keyBytes, this.keyOffsets[keyIndex], this.keyOffsets[keyIndex + 1],
+					key.bytes, key.offset, key.offset + key.length);
+		}
+
+		// Index of the first key greater than the given one
+		private int upperBound(BytesRef key) {
+			int first = 0;
+			int last = size();
+
+			while (first < last) {
+				int median = first + (last - first) / 2;
+
+				if (compareKey(median, key) <= 0) {
+					first = median + 1;
+				} else {
+					last = median;
+				}
 			}
+			return first;
+		}
 
-			IndexSearcher checkedIndexSearcher = this.cachedIndexSearcher;
+		// Index of the first key greater than or equal to the given one
+		private int lowerBound(BytesRef key) {
+			int first = 0;
+			int last = size();
 
-			if (checkedIndexSearcher == null) {
-				checkedIndexSearcher = this.cachedIndexSearcher = new IndexSearcher(this.indexReader);
+			while (first < last) {
+				int median = first + (last - first) / 2;
+
+				if (compareKey(median, key) < 0) {
+					first = median + 1;
+				} else {
+					last = median;
+				}
 			}
-			return checkedIndexSearcher;
+			return first;
 		}
 
 	}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.filescanner.swt.main;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.carne.filescanner.engine.spi.Format;
+import de.carne.filescanner.platform.FileScannerPlatform;
+import de.carne.nio.file.FileUtil;
+import de.carne.nio.file.attribute.FileAttributes;
+import de.carne.util.Exceptions;
+import de.carne.util.SystemProperties;
+import de.carne.util.logging.Log;
+
+/**
+ * On-disk cache for {@linkplain SearchIndex} directories.
+ * <p>
+ * Cache entries are identified by a fingerprint of the scanned input file and the enabled formats. The cache is
+ * bounded by its total size; the least recently used entries are evicted first.
+ */
+final class SearchIndexCache {
+
+	private static final Log LOG = new Log();
+
+	/**
+	 * Version of the index layout. Must be incremented whenever the index content changes incompatibly.
+	 */
+	private static final int INDEX_VERSION = 3;
+
+	private static final boolean ENABLED = SystemProperties.booleanValue(SearchIndexCache.class, ".enabled", false);
+	private static final String DIR = SystemProperties.value(SearchIndexCache.class, ".dir", "");
+	private static final long SIZE_LIMIT = SystemProperties.longValue(SearchIndexCache.class, ".sizeLimit", 1024)
+			* 1024 * 1024;
+
+	private static final int SAMPLE_COUNT = 16;
+	private static final int SAMPLE_SIZE = 4096;
+
+	private SearchIndexCache() {
+		// Prevent instantiation
+	}
+
+	/**
+	 * Checks whether the search index cache is enabled.
+	 *
+	 * @return {@code true} if the search index cache is enabled.
+	 */
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/**
+	 * Gets the cache directory to use for indexing the given input file.
+	 * <p>
+	 * If the cache is disabled or the input file cannot be fingerprinted, {@code null} is returned.
+	 *
+	 * @param inputPath the input file to get the cache directory for.
+	 * @param formats the formats used for scanning.
+	 * @return the cache directory to use, or {@code null} if the cache should not be used.
+	 */
+	@Nullable
+	public static Path open(Path inputPath, Collection<Format> formats) {
+		Path entryPath = null;
+
+		if (ENABLED) {
+			try {
+				Path cacheDir = cacheDir();
+
+				Files.createDirectories(cacheDir, FileAttributes.userDirectoryDefault(cacheDir));
+				entryPath = cacheDir.resolve(fingerprint(inputPath, formats));
+				if (Files.isDirectory(entryPath)) {
+					LOG.info("Reusing cached search index ''{0}'' for input ''{1}''", entryPath, inputPath);
+				} else {
+					Files.createDirectory(entryPath, FileAttributes.userDirectoryDefault(cacheDir));
+				}
+				Files.setLastModifiedTime(entryPath, FileTime.fromMillis(System.currentTimeMillis()));
+				evict(cacheDir, entryPath);
+			} catch (IOException e) {
+				LOG.warning(e, "Failed to access search index cache for input ''{0}''", inputPath);
+
+				entryPath = null;
+			}
+		}
+		return entryPath;
+	}
+
+	private static Path cacheDir() {
+		return (DIR.length() > 0 ? Paths.get(DIR)
+				: FileScannerPlatform.cacheDir().resolve("filescanner").resolve("index"));
+	}
+
+	private static String fingerprint(Path inputPath, Collection<Format> formats) throws IOException {
+		MessageDigest digest;
+
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+
+		Path realInputPath = inputPath.toRealPath();
+		BasicFileAttributes inputAttributes = Files.readAttributes(realInputPath, BasicFileAttributes.class);
+		long inputSize = inputAttributes.size();
+		ByteBuffer buffer = ByteBuffer.allocate(Math.max(SAMPLE_SIZE, Long.BYTES * 3));
+
+		buffer.putLong(INDEX_VERSION).putLong(inputSize).putLong(inputAttributes.lastModifiedTime().toMillis());
+		buffer.flip();
+		digest.update(buffer);
+		digest.update(realInputPath.toString().getBytes(StandardCharsets.UTF_8));
+
+		TreeSet<String> formatNames = new TreeSet<>();
+
+		formats.forEach(format -> formatNames.add(format.name()));
+		for (String formatName : formatNames) {
+			digest.update(formatName.getBytes(StandardCharsets.UTF_8));
+		}
+		try (FileChannel channel = FileChannel.open(realInputPath, StandardOpenOption.READ)) {
+			long sampleStep = Math.max(inputSize / SAMPLE_COUNT, SAMPLE_SIZE);
+
+			for (long samplePosition = 0; samplePosition < inputSize; samplePosition += sampleStep) {
+				buffer.clear();
+				channel.read(buffer, samplePosition);
+				buffer.flip();
+				digest.update(buffer);
+			}
+		}
+
+		StringBuilder fingerprint = new StringBuilder();
+
+		for (byte digestByte : digest.digest()) {
+			fingerprint.append(Character.forDigit((digestByte >> 4) & 0xf, 16));
+			fingerprint.append(Character.forDigit(digestByte & 0xf, 16));
+		}
+		return fingerprint.toString();
+	}
+
+	private static void evict(Path cacheDir, Path currentEntryPath) throws IOException {
+		List<Map.Entry<Path, FileTime>> entries = new ArrayList<>();
+		long totalSize = 0;
+
+		try (Stream<Path> entryPaths = Files.list(cacheDir)) {
+			for (Path entryPath : (Iterable<Path>) entryPaths::iterator) {
+				if (Files.isDirectory(entryPath) && !entryPath.equals(currentEntryPath)) {
+					entries.add(Map.entry(entryPath, Files.getLastModifiedTime(entryPath)));
+				}
+				totalSize += entrySize(entryPath);
+			}
+		}
+		entries.sort(Map.Entry.comparingByValue());
+		for (Map.Entry<Path, FileTime> entry : entries) {
+			if (totalSize <= SIZE_LIMIT) {
+				break;
+			}
+
+			Path entryPath = entry.getKey();
+			long entrySize = entrySize(entryPath);
+
+			LOG.info("Evicting cached search index ''{0}''", entryPath);
+
+			FileUtil.delete(entryPath);
+			totalSize -= entrySize;
+		}
+	}
+
+	private static long entrySize(Path entryPath) {
+		long entrySize = 0;
+
+		try (Stream<Path> files = Files.walk(entryPath)) {
+			entrySize = files.mapToLong(SearchIndexCache::fileSize).sum();
+		} catch (IOException e) {
+			LOG.warning(e, "Failed to determine size of cached search index ''{0}''", entryPath);
+		}
+		return entrySize;
+	}
+
+	private static long fileSize(Path file) {
+		long fileSize = 0;
+
+		try {
+			if (Files.isRegularFile(file)) {
+				fileSize = Files.size(file);
+			}
+		} catch (IOException e) {
+			Exceptions.ignore(e);
+		}
+		return fileSize;
+	}
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.filescanner.swt.main;
+
+/**
+ * Snapshot of {@linkplain SearchIndex} statistics.
+ */
+final class SearchIndexStats {
+
+	static final SearchIndexStats NONE = new SearchIndexStats(0, 0, 0, 0);
+
+	private final long indexSize;
+	private final long documentCount;
+	private final long ramBytesUsed;
+	private final long pendingDocumentCount;
+
+	SearchIndexStats(long indexSize, long documentCount, long ramBytesUsed, long pendingDocumentCount) {
+		this.indexSize = indexSize;
+		this.documentCount = documentCount;
+		this.ramBytesUsed = ramBytesUsed;
+		this.pendingDocumentCount = pendingDocumentCount;
+	}
+
+	/**
+	 * Gets the on-disk size of the index.
+	 *
+	 * @return the on-disk size of the index (in bytes) or {@code -1} if the size could not be determined.
+	 */
+	public long indexSize() {
+		return this.indexSize;
+	}
+
+	/**
+	 * Gets the number of indexed documents.
+	 *
+	 * @return the number of indexed documents.
+	 */
+	public long documentCount() {
+		return this.documentCount;
+	}
+
+	/**
+	 * Gets the memory used for buffering not yet flushed documents.
+	 *
+	 * @return the memory used for buffering not yet flushed documents (in bytes).
+	 */
+	public long ramBytesUsed() {
+		return this.ramBytesUsed;
+	}
+
+	/**
+	 * Gets the number of not yet committed documents.
+	 *
+	 * @return the number of not yet committed documents.
+	 */
+	public long pendingDocumentCount() {
+		return this.pendingDocumentCount;
+	}
+
+	@Override
+	public String toString() {
+		return "size: " + this.indexSize + " documents: " + this.documentCount + " ram: " + this.ramBytesUsed
+				+ " pending: " + this.pendingDocumentCount;
+	}
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.filescanner.swt.main;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.carne.boot.Application;
+import de.carne.filescanner.engine.FileScannerResult;
+import de.carne.filescanner.swt.FileScannerMain;
+import de.carne.util.Exceptions;
+import de.carne.util.SystemProperties;
+import de.carne.util.logging.Log;
+
+/**
+ * Background stage feeding scan results into a {@linkplain SearchIndex}.
+ * <p>
+ * Results are queued in a bounded queue and indexed by one or more workers (see
+ * {@linkplain SearchIndex#indexThreads()}). If the queue is full, the submitting thread is blocked until the workers
+ * catch up. The indexer owns the {@linkplain SearchIndex} and closes it when it is closed itself.
+ */
+final class SearchIndexer implements AutoCloseable {
+
+	private static final Log LOG = new Log();
+
+	private static final int QUEUE_CAPACITY = SystemProperties.intValue(SearchIndexer.class, ".queueCapacity", 1024);
+	private static final long POLL_TIMEOUT = 100;
+
+	private final SearchIndex searchIndex;
+	private final BlockingQueue<FileScannerResult> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+	private final List<Future<?>> workers = new ArrayList<>();
+	private final AtomicInteger activeWorkerCount = new AtomicInteger();
+	private final AtomicInteger indexedCount = new AtomicInteger();
+	private final long startNanos = System.nanoTime();
+	private volatile boolean sealed = false;
+	private volatile boolean cancelled = false;
+	@Nullable
+	private volatile Future<?> closed = null;
+
+	SearchIndexer(SearchIndex searchIndex) {
+		this.searchIndex = searchIndex;
+
+		int workerCount = searchIndex.indexThreads();
+
+		this.activeWorkerCount.set(workerCount);
+		for (int workerIndex = 0; workerIndex < workerCount; workerIndex++) {
+			this.workers.add(Application.getMain(FileScannerMain.class).cachedThreadPool().submit(this::runWorker));
+		}
+	}
+
+	/**
+	 * Queues a scan result for indexing.
+	 * <p>
+	 * This function blocks if the indexing queue is currently full.
+	 *
+	 * @param result the scan result to index.
+	 */
+	public void addResult(FileScannerResult result) {
+		try {
+			while (!this.cancelled && !this.queue.offer(result, POLL_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				// Wait for the workers to catch up
+			}
+		} catch (InterruptedException e) {
+			Exceptions.ignore(e);
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Signals that no further results will be added.
+	 * <p>
+	 * The workers seal the underlying {@linkplain SearchIndex} as soon as all queued results have been indexed. This
+	 * function does not wait for this to happen.
+	 */
+	public void seal() {
+		this.sealed = true;
+	}
+
+	/**
+	 * Discards all still queued results and seals the underlying {@linkplain SearchIndex}.
+	 */
+	public void cancel() {
+		this.cancelled = true;
+		this.sealed = true;
+		this.queue.clear();
+	}
+
+	private void runWorker() {
+		LOG.debug("Search indexer worker started");
+
+		try {
+			while (!this.cancelled) {
+				FileScannerResult result = this.queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+
+				if (result != null) {
+					this.searchIndex.addResult(result);
+					this.indexedCount.incrementAndGet();
+				} else if (this.sealed && this.queue.isEmpty()) {
+					break;
+				}
+			}
+		} catch (InterruptedException e) {
+			Exceptions.ignore(e);
+			Thread.currentThread().interrupt();
+		} finally {
+			if (this.activeWorkerCount.decrementAndGet() == 0) {
+				this.searchIndex.seal();
+				logStats();
+			}
+		}
+
+		LOG.debug("Search indexer worker finished");
+	}
+
+	private void logStats() {
+		int finalIndexedCount = this.indexedCount.get();
+		long elapsedMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.startNanos), 1);
+
+		LOG.info("Search indexer finished ({0} results indexed in {1} ms; {2} results/s; cancelled: {3})",
+				finalIndexedCount, elapsedMillis, (finalIndexedCount * 1000l) / elapsedMillis, this.cancelled);
+	}
+
+	/**
+	 * Cancels indexing and closes the underlying {@linkplain SearchIndex}.
+	 * <p>
+	 * Workers may still be busy indexing a result. Therefore the index is closed in the background once all workers
+	 * have finished; this function does not wait for this to happen (see {@linkplain #awaitClosed()}).
+	 */
+	@Override
+	public void close() {
+		cancel();
+		this.closed = Application.getMain(FileScannerMain.class).cachedThreadPool().submit(this::closeIndex);
+	}
+
+	/**
+	 * Waits until the underlying {@linkplain SearchIndex} has been closed via {@linkplain #close()}.
+	 *
+	 * @throws InterruptedException if the calling thread is interrupted while waiting.
+	 */
+	public void awaitClosed() throws InterruptedException {
+		Future<?> checkedClosed = this.closed;
+
+		if (checkedClosed != null) {
+			try {
+				checkedClosed.get();
+			} catch (ExecutionException e) {
+				LOG.error(e, "Failed to close search index");
+			}
+		}
+	}
+
+	private Void closeIndex() throws InterruptedException {
+		try {
+			for (Future<?> worker : this.workers) {
+				worker.get();
+			}
+		} catch (ExecutionException e) {
+			LOG.error(e, "Search indexer failed");
+		} finally {
+			this.searchIndex.close();
+		}
+		return null;
+	}
+
+}
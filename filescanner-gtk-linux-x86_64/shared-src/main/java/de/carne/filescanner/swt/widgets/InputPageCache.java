@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.filescanner.swt.widgets;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.carne.filescanner.engine.input.FileScannerInput;
+import de.carne.util.SystemProperties;
+import de.carne.util.logging.Log;
+
+/**
+ * Page cache for {@linkplain InputView} input reads.
+ * <p>
+ * Input data is read in aligned pages of {@value #PAGE_SIZE} bytes, so that painting a screen of lines requires only
+ * one or two bulk reads. Pages are loaded by an {@linkplain InputPagePrefetcher} and read from the display thread
+ * without blocking. The least recently used pages are evicted as soon as the cache exceeds
+ * {@code InputPageCache.cacheSize} bytes.
+ */
+class InputPageCache {
+
+	private static final Log LOG = new Log();
+
+	static final int PAGE_SHIFT = 16;
+	static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+	private static final long CACHE_SIZE = SystemProperties.longValue(InputPageCache.class, ".cacheSize",
+			4l * 1024l * 1024l);
+
+	private final Map<Long, ByteBuffer> pages = new LinkedHashMap<>(16, 0.75f, true);
+	private long cachedBytes = 0;
+	@Nullable
+	private FileScannerInput cachedInput = null;
+	private long hitCount = 0;
+	private long missCount = 0;
+
+	/**
+	 * Reads input data from the already cached pages.
+	 * <p>
+	 * No input data is loaded by this function. If any of the required pages is not yet cached, the buffer is left
+	 * untouched.
+	 *
+	 * @param input the input to read from.
+	 * @param buffer the buffer to read into.
+	 * @param position the input position to read from.
+	 * @return {@code true} if the data has been read, {@code false} if not all required pages are cached.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public synchronized boolean readCached(FileScannerInput input, ByteBuffer buffer, long position)
+			throws IOException {
+		selectInput(input);
+
+		long readEnd = Math.min(position + buffer.remaining(), input.size());
+		boolean cached = position >= readEnd || isCached(position >> PAGE_SHIFT, (readEnd - 1) >> PAGE_SHIFT);
+
+		if (cached) {
+			this.hitCount++;
+
+			long readPosition = position;
+
+			while (readPosition < readEnd) {
+				long pageIndex = readPosition >> PAGE_SHIFT;
+				ByteBuffer page = Objects.requireNonNull(this.pages.get(Long.valueOf(pageIndex)));
+				int pageOffset = (int) (readPosition - (pageIndex << PAGE_SHIFT));
+				int readSize = (int) Math.min(readEnd - readPosition, page.limit() - (long) pageOffset);
+
+				if (readSize <= 0) {
+					break;
+				}
+
+				ByteBuffer pageSlice = page.duplicate();
+
+				pageSlice.position(pageOffset);
+				pageSlice.limit(pageOffset + readSize);
+				buffer.put(pageSlice);
+				readPosition += readSize;
+			}
+		} else {
+			this.missCount++;
+		}
+		return cached;
+	}
+
+	/**
+	 * Checks whether the given input page is cached.
+	 *
+	 * @param input the input to check.
+	 * @param pageIndex the index of the page to check.
+	 * @return {@code true} if the page is cached.
+	 */
+	public synchronized boolean isCached(FileScannerInput input, long pageIndex) {
+		return this.cachedInput == input && this.pages.containsKey(Long.valueOf(pageIndex));
+	}
+
+	private boolean isCached(long firstPageIndex, long lastPageIndex) {
+		boolean cached = true;
+
+		for (long pageIndex = firstPageIndex; cached && pageIndex <= lastPageIndex; pageIndex++) {
+			cached = this.pages.containsKey(Long.valueOf(pageIndex));
+		}
+		return cached;
+	}
+
+	/**
+	 * Adds a loaded page to the cache.
+	 * <p>
+	 * Pages of an input other than the one currently read are discarded.
+	 *
+	 * @param input the input the page has been loaded from.
+	 * @param pageIndex the index of the loaded page.
+	 * @param page the loaded page.
+	 */
+	public synchronized void putPage(FileScannerInput input, long pageIndex, ByteBuffer page) {
+		if (this.cachedInput == input) {
+			ByteBuffer replacedPage = this.pages.put(Long.valueOf(pageIndex), page);
+
+			if (replacedPage != null) {
+				this.cachedBytes -= replacedPage.capacity();
+			}
+			this.cachedBytes += page.capacity();
+			evictPages();
+		}
+	}
+
+	/**
+	 * Selects the input to cache.
+	 * <p>
+	 * If the input differs from the currently cached one, all cached pages are discarded.
+	 *
+	 * @param input the input to cache.
+	 */
+	public synchronized void selectInput(FileScannerInput input) {
+		if (this.cachedInput != input) {
+			clear();
+			this.cachedInput = input;
+		}
+	}
+
+	static ByteBuffer loadPage(FileScannerInput input, long pageIndex) throws IOException {
+		long pagePosition = pageIndex << PAGE_SHIFT;
+		ByteBuffer page = ByteBuffer.allocate((int) Math.max(Math.min(PAGE_SIZE, input.size() - pagePosition), 0));
+
+		while (page.hasRemaining()) {
+			int read = input.read(page, pagePosition + page.position());
+
+			if (read <= 0) {
+				break;
+			}
+		}
+		page.flip();
+		return page;
+	}
+
+	private void evictPages() {
+		Iterator<ByteBuffer> pageIterator = this.pages.values().iterator();
+
+		// Always keep the two most recent pages (a line may span two pages)
+		while (this.cachedBytes > CACHE_SIZE && this.pages.size() > 2 && pageIterator.hasNext()) {
+			this.cachedBytes -= pageIterator.next().capacity();
+			pageIterator.remove();
+		}
+	}
+
+	/**
+	 * Discards all cached pages.
+	 */
+	public synchronized void clear() {
+		this.pages.clear();
+		this.cachedBytes = 0;
+		this.cachedInput = null;
+	}
+
+	/**
+	 * Logs and resets the cache hit/miss counters (if debug logging is enabled).
+	 */
+	public synchronized void logStats() {
+		if (LOG.isDebugLoggable() && (this.hitCount > 0 || this.missCount > 0)) {
+			LOG.debug("Input page cache hits: {0} misses: {1} (cached: {2} bytes in {3} pages)", this.hitCount,
+					this.missCount, this.cachedBytes, this.pages.size());
+		}
+		this.hitCount = 0;
+		this.missCount = 0;
+	}
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2007-2022 Holger de Carne and contributors, All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.carne.filescanner.swt.widgets;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.carne.filescanner.engine.input.FileScannerInput;
+import de.carne.filescanner.swt.TaskExecutors;
+import de.carne.util.Exceptions;
+import de.carne.util.SystemProperties;
+
+/**
+ * Loads {@linkplain InputPageCache} pages in the background.
+ * <p>
+ * Only the most recent request is served; a request issued while an older one is still being loaded supersedes the
+ * older one. The requested pages are loaded first, followed by {@code InputPagePrefetcher.readAhead} pages in the
+ * scroll direction.
+ */
+class InputPagePrefetcher {
+
+	private static final long READ_AHEAD = SystemProperties.longValue(InputPagePrefetcher.class, ".readAhead", 4);
+
+	private final InputPageCache cache;
+	private final Runnable pagesLoaded;
+	private final ExecutorService executor = TaskExecutors.newFixedExecutor("input-prefetch", 1);
+	private final AtomicReference<@Nullable Request> pendingRequest = new AtomicReference<>();
+	private final AtomicBoolean loaderRunning = new AtomicBoolean(false);
+
+	/**
+	 * Constructs a new {@linkplain InputPagePrefetcher} instance.
+	 *
+	 * @param cache the cache to load the pages into.
+	 * @param pagesLoaded the callback to invoke (from the loader thread) once the requested pages are cached.
+	 */
+	InputPagePrefetcher(InputPageCache cache, Runnable pagesLoaded) {
+		this.cache = cache;
+		this.pagesLoaded = pagesLoaded;
+	}
+
+	/**
+	 * Requests the given range of pages to be loaded.
+	 *
+	 * @param input the input to load the pages from.
+	 * @param firstPageIndex the index of the first requested page.
+	 * @param lastPageIndex the index of the last requested page.
+	 * @param direction the current scroll direction (negative, zero or positive) used for read-ahead.
+	 */
+	public void request(FileScannerInput input, long firstPageIndex, long lastPageIndex, int direction) {
+		this.pendingRequest.set(new Request(input, firstPageIndex, lastPageIndex, direction));
+		if (this.loaderRunning.compareAndSet(false, true)) {
+			try {
+				this.executor.execute(this::runLoader);
+			} catch (RejectedExecutionException e) {
+				// Already closed
+				Exceptions.ignore(e);
+			}
+		}
+	}
+
+	/**
+	 * Stops loading pages.
+	 */
+	public void close() {
+		this.pendingRequest.set(null);
+		this.executor.shutdownNow();
+	}
+
+	private void runLoader() {
+		do {
+			Request request;
+
+			while ((request = this.pendingRequest.getAndSet(null)) != null) {
+				try {
+					serveRequest(request);
+				} catch (IOException e) {
+					Exceptions.warn(e);
+				}
+			}
+			this.loaderRunning.set(false);
+			// Re-check for a request issued after the last poll but before the flag has been reset
+		} while (this.pendingRequest.get() != null && this.loaderRunning.compareAndSet(false, true));
+	}
+
+	private void serveRequest(Request request) throws IOException {
+		for (long pageIndex = request.firstPageIndex; pageIndex <= request.lastPageIndex; pageIndex++) {
+			if (isSuperseded()) {
+				return;
+			}
+			loadPage(request.input, pageIndex);
+		}
+		this.pagesLoaded.run();
+
+		long pageCount = (request.input.size() + InputPageCache.PAGE_SIZE - 1) >> InputPageCache.PAGE_SHIFT;
+
+		for (long readAhead = 1; readAhead <= READ_AHEAD; readAhead++) {
+			if (isSuperseded()) {
+				return;
+			}
+			if (request.direction >= 0 && request.lastPageIndex + readAhead < pageCount) {
+				loadPage(request.input, request.lastPageIndex + readAhead);
+			}
+			if (request.direction <= 0 && request.firstPageIndex - readAhead >= 0) {
+				loadPage(request.input, request.firstPageIndex - readAhead);
+			}
+		}
+	}
+
+	private boolean isSuperseded() {
+		return this.pendingRequest.get() != null || Thread.currentThread().isInterrupted();
+	}
+
+	private void loadPage(FileScannerInput input, long pageIndex) throws IOException {
+		if (!this.cache.isCached(input, pageIndex)) {
+			ByteBuffer page = InputPageCache.loadPage(input, pageIndex);
+
+			this.cache.putPage(input, pageIndex, page);
+		}
+	}
+
+	private static class Request {
+
+		final FileScannerInput input;
+		final long firstPageIndex;
+		final long lastPageIndex;
+		final int direction;
+
+		Request(FileScannerInput input, long firstPageIndex, long lastPageIndex, int direction) {
+			this.input = input;
+			this.firstPageIndex = firstPageIndex;
+			this.lastPageIndex = lastPageIndex;
+			this.direction = direction;
+		}
+
+	}
+
+}
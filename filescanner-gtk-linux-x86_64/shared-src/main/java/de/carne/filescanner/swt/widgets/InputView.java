@@ -63,6 +63,12 @@ public class InputView extends Canvas implements DisposeListener, FocusListener,
 	private @Nullable FileScannerResult result = null;
 	private @Nullable Font defaultFont = null;
 	private @Nullable Layout cachedLayout = null;
+	private final InputPageCache pageCache = new InputPageCache();
+	private final ByteBuffer dataBuffer = ByteBuffer.allocate(DATA_LINE_SIZE);
+	private final char[] lineBuffer = DISPLAY_TEMPLATE.toCharArray();
+	private final InputPagePrefetcher prefetcher;
+	private long paintedSelection = 0;
+	private boolean placeholdersPainted = false;
 
 	/**
 	 * Constructs a new {@linkplain InputView} instance.
@@ -77,6 +83,11 @@ public class InputView extends Canvas implements DisposeListener, FocusListener,
 
 		Display display = getDisplay();
 
+		this.prefetcher = new InputPagePrefetcher(this.pageCache, () -> {
+			if (!display.isDisposed()) {
+				display.asyncExec(this::onPagesLoaded);
+			}
+		});
 		setFont(getDefaultFont(display));
 		setBackground(display.getSystemColor(SWT.COLOR_LIST_BACKGROUND));
 		setForeground(display.getSystemColor(SWT.COLOR_LIST_FOREGROUND));
@@ -128,6 +139,8 @@ public class InputView extends Canvas implements DisposeListener, FocusListener,
 
 	@Override
 	public void widgetDisposed(DisposeEvent event) {
+		this.prefetcher.close();
+		this.pageCache.clear();
 		if (this.defaultFont != null) {
 			this.defaultFont.dispose();
 		}
@@ -150,6 +163,8 @@ public class InputView extends Canvas implements DisposeListener, FocusListener,
 
 	@Override
 	public void keyPressed(KeyEvent event) {
+		long previousSelection = this.vertical.selection();
+
 		switch (event.keyCode) {
 		case SWT.ARROW_LEFT:
 			if ((event.stateMask & SWT.COMMAND) == SWT.COMMAND) {
@@ -173,7 +188,6 @@ public class InputView extends Canvas implements DisposeListener, FocusListener,
 			} else {
 				this.vertical.scrollLines(-1);
 			}
-			redraw();
 			break;
 		case SWT.ARROW_DOWN:
 			if ((event.stateMask & SWT.COMMAND) == SWT.COMMAND) {
@@ -181,27 +195,23 @@ public class InputView extends Canvas implements DisposeListener, FocusListener,
 			} else {
 				this.vertical.scrollLines(1);
 			}
-			redraw();
 			break;
 		case SWT.PAGE_UP:
 			this.vertical.scrollPage(-1);
-			redraw();
 			break;
 		case SWT.PAGE_DOWN:
 			this.vertical.scrollPage(1);
-			redraw();
 			break;
 		case SWT.HOME:
 			this.vertical.scrollTo(0);
-			redraw();
 			break;
 		case SWT.END:
 			this.vertical.scrollTo(Long.MAX_VALUE);
-			redraw();
 			break;
 		default:
 			// Nothing to do here
 		}
+		scrollVerticalDisplay(previousSelection);
 	}
 
 	@Override
@@ -211,7 +221,35 @@ public class InputView extends Canvas implements DisposeListener, FocusListener,
 
 	@Override
 	public void mouseScrolled(MouseEvent event) {
+		long previousSelection = this.vertical.selection();
+
 		this.vertical.scrollLines(-event.count);
+		scrollVerticalDisplay(previousSelection);
+	}
+
+	private void scrollVerticalDisplay(long previousSelection) {
+		long deltaLines = this.vertical.selection() - previousSelection;
+
+		if (deltaLines != 0) {
+			Layout layout = this.cachedLayout;
+			Rectangle clientArea = getClientArea();
+			int scrollHeight = clientArea.height - 2 * (layout != null ? layout.originY : 0);
+
+			if (layout != null && !layout.resized && Math.abs(deltaLines) * layout.scrollUnitY < scrollHeight) {
+				// Move the already painted lines and only paint the exposed ones (as well as the top and bottom
+				// margins which may contain partially painted lines)
+				int deltaY = (int) deltaLines * layout.scrollUnitY;
+				int scrollY = layout.originY + Math.max(deltaY, 0);
+				int destY = layout.originY + Math.max(-deltaY, 0);
+
+				scroll(clientArea.x, destY, clientArea.x, scrollY, clientArea.width, scrollHeight - Math.abs(deltaY),
+						false);
+				redraw(clientArea.x, 0, clientArea.width, layout.originY, false);
+				redraw(clientArea.x, clientArea.height - layout.originY, clientArea.width, layout.originY, false);
+			} else {
+				redraw();
+			}
+		}
 	}
 
 	@Override
@@ -243,21 +281,7 @@ public class InputView extends Canvas implements DisposeListener, FocusListener,
 	private static final int DISPLAY_LINE_LENGTH1_BASE = 19;
 	private static final int DISPLAY_LINE_LENGTH2_BASE = 66;
 	private static final int DISPLAY_LINE_LENGTH3_BASE = 68;
-	private static final String[] BYTE_HEX_MAP = new String[] { "00", "01", "02", "03", "04", "05", "06", "07", "08",
-			"09", "0a", "0b", "0c", "0d", "0e", "0f", "10", "11", "12", "13", "14", "15", "16", "17", "18", "19", "1a",
-			"1b", "1c", "1d", "1e", "1f", "20", "21", "22", "23", "24", "25", "26", "27", "28", "29", "2a", "2b", "2c",
-			"2d", "2e", "2f", "30", "31", "32", "33", "34", "35", "36", "37", "38", "39", "3a", "3b", "3c", "3d", "3e",
-			"3f", "40", "41", "42", "43", "44", "45", "46", "47", "48", "49", "4a", "4b", "4c", "4d", "4e", "4f", "50",
-			"51", "52", "53", "54", "55", "56", "57", "58", "59", "5a", "5b", "5c", "5d", "5e", "5f", "60", "61", "62",
-			"63", "64", "65", "66", "67", "68", "69", "6a", "6b", "6c", "6d", "6e", "6f", "70", "71", "72", "73", "74",
-			"75", "76", "77", "78", "79", "7a", "7b", "7c", "7d", "7e", "7f", "80", "81", "82", "83", "84", "85", "86",
-			"87", "88", "89", "8a", "8b", "8c", "8d", "8e", "8f", "90", "91", "92", "93", "94", "95", "96", "97", "98",
-			"99", "9a", "9b", "9c", "9d", "9e", "9f", "a0", "a1", "a2", "a3", "a4", "a5", "a6", "a7", "a8", "a9", "aa",
-			"ab", "ac", "ad", "ae", "af", "b0", "b1", "b2", "b3", "b4", "b5", "b6", "b7", "b8", "b9", "ba", "bb", "bc",
-			"bd", "be", "bf", "c0", "c1", "c2", "c3", "c4", "c5", "c6", "c7", "c8", "c9", "ca", "cb", "cc", "cd", "ce",
-			"cf", "d0", "d1", "d2", "d3", "d4", "d5", "d6", "d7", "d8", "d9", "da", "db", "dc", "dd", "de", "df", "e0",
-			"e1", "e2", "e3", "e4", "e5", "e6", "e7", "e8", "e9", "ea", "eb", "ec", "ed", "ee", "ef", "f0", "f1", "f2",
-			"f3", "f4", "f5", "f6", "f7", "f8", "f9", "fa", "fb", "fc", "fd", "fe", "ff" };
+	private static final char[] NIBBLE_HEX_MAP = "0123456789abcdef".toCharArray();
 	private static final char[] BYTE_CHAR_MAP = new char[] { '.', '.', '.', '.', '.', '.', '.', '.', '.', '.', '.', '.',
 			'.', '.', '.', '.', '.', '.', '.', '.', '.', '.', '.', '.', '.', '.', '.', '.', '.', '.', '.', '.', 0x20,
 			0x21, 0x22, 0x23, 0x24, 0x25, 0x26, 0x27, 0x28, 0x29, 0x2a, 0x2b, 0x2c, 0x2d, 0x2e, 0x2f, 0x30, 0x31, 0x32,
@@ -311,28 +335,28 @@ public class InputView extends Canvas implements DisposeListener, FocusListener,
 					int drawY = layout.originY + (skipLineCount - 1) * layout.scrollUnitY;
 					int drawYLimit = event.y + event.height;
 					long dataPosition = (this.vertical.selection() + skipLineCount - 1) << DATA_LINE_SHIFT;
-					ByteBuffer dataBuffer = ByteBuffer.allocate(DATA_LINE_SIZE);
-					StringBuilder formatBuffer = new StringBuilder(DISPLAY_LINE_LENGTH);
+					ByteBuffer dataBuffer = this.dataBuffer;
+					char[] lineBuffer = this.lineBuffer;
+					Rectangle paintClipping = gc.getClipping();
+
+					prefetchPages(input, inputSize, layout);
 
 					while (drawY < drawYLimit && dataPosition < inputSize) {
 						if (dataPosition >= 0) {
 							dataBuffer.clear();
-							input.read(dataBuffer, dataPosition);
-							dataBuffer.flip();
-							formatBuffer.setLength(0);
-							formatDisplayLine(formatBuffer, dataPosition, dataBuffer);
-							if (selectionEnd <= dataPosition || dataPosition + DATA_LINE_SIZE <= selectionStart) {
-								String formatString = formatBuffer.toString();
-
-								if (useAlpha) {
-									gc.setAlpha(background.getAlpha());
-									gc.drawString(formatString, drawX, drawY, false);
-									gc.setAlpha(foreground.getAlpha());
-									gc.drawString(formatString, drawX, drawY, true);
-								} else {
-									gc.drawString(formatBuffer.toString(), drawX, drawY, false);
-								}
+							if (this.pageCache.readCached(input, dataBuffer, dataPosition)) {
+								dataBuffer.flip();
+								formatDisplayLine(lineBuffer, dataPosition, dataBuffer);
 							} else {
+								formatPlaceholderLine(lineBuffer, dataPosition,
+										(int) Math.min(inputSize - dataPosition, DATA_LINE_SIZE));
+								this.placeholdersPainted = true;
+							}
+
+							String line = new String(lineBuffer);
+
+							drawLine(gc, line, drawX, drawY, background, foreground, useAlpha);
+							if (selectionStart < dataPosition + DATA_LINE_SIZE && dataPosition < selectionEnd) {
 								int offset1 = DISPLAY_LINE_LENGTH1_BASE;
 								int offset3 = DISPLAY_LINE_LENGTH3_BASE;
 
@@ -353,65 +377,11 @@ public class InputView extends Canvas implements DisposeListener, FocusListener,
 									offset4 -= delta;
 								}
 
-								String formatString1 = formatBuffer.substring(0, offset1);
-								String formatString2 = formatBuffer.substring(offset1, offset2);
-								String formatString3 = formatBuffer.substring(offset2, offset3);
-								String formatString4 = formatBuffer.substring(offset3, offset4);
-								String formatString5 = formatBuffer.substring(offset4);
-								int nextDrawX = drawX;
-
-								if (useAlpha) {
-									gc.setAlpha(background.getAlpha());
-									gc.drawString(formatString1, nextDrawX, drawY, false);
-									gc.setAlpha(foreground.getAlpha());
-									gc.drawString(formatString1, nextDrawX, drawY, true);
-									nextDrawX += gc.textExtent(formatString1, SWT.NONE).x;
-									gc.setBackground(backgroundSelected);
-									gc.setForeground(foregroundSelected);
-									gc.setAlpha(backgroundSelected.getAlpha());
-									gc.drawString(formatString2, nextDrawX, drawY, false);
-									gc.setAlpha(foregroundSelected.getAlpha());
-									gc.drawString(formatString2, nextDrawX, drawY, true);
-									nextDrawX += gc.textExtent(formatString2, SWT.NONE).x;
-									gc.setBackground(background);
-									gc.setForeground(foreground);
-									gc.setAlpha(background.getAlpha());
-									gc.drawString(formatString3, nextDrawX, drawY, false);
-									gc.setAlpha(foreground.getAlpha());
-									gc.drawString(formatString3, nextDrawX, drawY, true);
-									nextDrawX += gc.textExtent(formatString3, SWT.NONE).x;
-									gc.setBackground(backgroundSelected);
-									gc.setForeground(foregroundSelected);
-									gc.setAlpha(backgroundSelected.getAlpha());
-									gc.drawString(formatString4, nextDrawX, drawY, false);
-									gc.setAlpha(foregroundSelected.getAlpha());
-									gc.drawString(formatString4, nextDrawX, drawY, true);
-									nextDrawX += gc.textExtent(formatString4, SWT.NONE).x;
-									gc.setBackground(background);
-									gc.setForeground(foreground);
-									gc.setAlpha(background.getAlpha());
-									gc.drawString(formatString5, nextDrawX, drawY, false);
-									gc.setAlpha(foreground.getAlpha());
-									gc.drawString(formatString5, nextDrawX, drawY, false);
-								} else {
-									gc.drawString(formatString1, nextDrawX, drawY, false);
-									nextDrawX += gc.textExtent(formatString1, SWT.NONE).x;
-									gc.setBackground(backgroundSelected);
-									gc.setForeground(foregroundSelected);
-									gc.drawString(formatString2, nextDrawX, drawY, false);
-									nextDrawX += gc.textExtent(formatString2, SWT.NONE).x;
-									gc.setBackground(background);
-									gc.setForeground(foreground);
-									gc.drawString(formatString3, nextDrawX, drawY, false);
-									nextDrawX += gc.textExtent(formatString3, SWT.NONE).x;
-									gc.setBackground(backgroundSelected);
-									gc.setForeground(foregroundSelected);
-									gc.drawString(formatString4, nextDrawX, drawY, false);
-									nextDrawX += gc.textExtent(formatString4, SWT.NONE).x;
-									gc.setBackground(background);
-									gc.setForeground(foreground);
-									gc.drawString(formatString5, nextDrawX, drawY, false);
-								}
+								// Overdraw the selected parts of the line using the selection colors
+								drawLineSelection(gc, layout, line, offset1, offset2, drawX, drawY, paintClipping,
+										backgroundSelected, foregroundSelected, useAlpha);
+								drawLineSelection(gc, layout, line, offset3, offset4, drawX, drawY, paintClipping,
+										backgroundSelected, foregroundSelected, useAlpha);
 							}
 						}
 						drawY += layout.scrollUnitY;
@@ -422,6 +392,7 @@ public class InputView extends Canvas implements DisposeListener, FocusListener,
 
 						gc.drawFocus(0, 0, size.x, size.y);
 					}
+					this.pageCache.logStats();
 				}
 			} catch (IOException e) {
 				Exceptions.warn(e);
@@ -431,36 +402,107 @@ public class InputView extends Canvas implements DisposeListener, FocusListener,
 		}
 	}
 
-	private void formatDisplayLine(StringBuilder buffer, long position, ByteBuffer data) {
-		buffer.append(BYTE_HEX_MAP[(int) ((position >> 56) & 0xff)]);
-		buffer.append(BYTE_HEX_MAP[(int) ((position >> 48) & 0xff)]);
-		buffer.append(BYTE_HEX_MAP[(int) ((position >> 40) & 0xff)]);
-		buffer.append(BYTE_HEX_MAP[(int) ((position >> 32) & 0xff)]);
-		buffer.append(BYTE_HEX_MAP[(int) ((position >> 24) & 0xff)]);
-		buffer.append(BYTE_HEX_MAP[(int) ((position >> 16) & 0xff)]);
-		buffer.append(BYTE_HEX_MAP[(int) ((position >> 8) & 0xff)]);
-		buffer.append(BYTE_HEX_MAP[(int) (position & 0xff)]);
-		buffer.append("h  ");
-		data.mark();
+	private void prefetchPages(FileScannerInput input, long inputSize, Layout layout) {
+		long selection = this.vertical.selection();
+		int direction = Long.signum(selection - this.paintedSelection);
+		long visibleLines = (getClientArea().height - layout.originY) / layout.scrollUnitY + 1l;
+		long visibleEnd = Math.min((selection + visibleLines) << DATA_LINE_SHIFT, inputSize);
+		long firstPageIndex = (selection << DATA_LINE_SHIFT) >> InputPageCache.PAGE_SHIFT;
+		long lastPageIndex = Math.max(visibleEnd - 1, 0) >> InputPageCache.PAGE_SHIFT;
+
+		this.paintedSelection = selection;
+		this.pageCache.selectInput(input);
+		// Never wait for the pages here; missing ones are painted as placeholders and redrawn once loaded
+		this.prefetcher.request(input, firstPageIndex, lastPageIndex, direction);
+	}
+
+	private void onPagesLoaded() {
+		if (!isDisposed() && this.placeholdersPainted) {
+			this.placeholdersPainted = false;
+			redraw();
+		}
+	}
+
+	private static void formatPosition(char[] buffer, long position) {
+		for (int nibbleIndex = 0; nibbleIndex < 16; nibbleIndex++) {
+			buffer[nibbleIndex] = NIBBLE_HEX_MAP[(int) (position >>> (60 - (nibbleIndex << 2))) & 0xf];
+		}
+	}
+
+	private static void formatPlaceholderLine(char[] buffer, long position, int length) {
+		formatPosition(buffer, position);
+
+		int hexIndex = DISPLAY_LINE_LENGTH1_BASE;
+		int charIndex = DISPLAY_LINE_LENGTH3_BASE;
+
 		for (int dataIndex = 0; dataIndex < DATA_LINE_SIZE; dataIndex++) {
-			if (data.hasRemaining()) {
-				buffer.append(BYTE_HEX_MAP[data.get() & 0xff]);
-				buffer.append(' ');
-			} else {
-				buffer.append("   ");
-			}
+			char placeholder = (dataIndex < length ? '?' : ' ');
+
+			buffer[hexIndex] = placeholder;
+			buffer[hexIndex + 1] = placeholder;
+			buffer[charIndex] = ' ';
+			hexIndex += 3;
+			charIndex++;
 		}
-		buffer.append(' ');
-		data.reset();
+	}
+
+	private static void formatDisplayLine(char[] buffer, long position, ByteBuffer data) {
+		// The buffer is initialized from DISPLAY_TEMPLATE; only the variable characters are updated
+		formatPosition(buffer, position);
+
+		int dataStart = data.position();
+		int dataLength = data.remaining();
+		int hexIndex = DISPLAY_LINE_LENGTH1_BASE;
+		int charIndex = DISPLAY_LINE_LENGTH3_BASE;
+
 		for (int dataIndex = 0; dataIndex < DATA_LINE_SIZE; dataIndex++) {
-			if (data.hasRemaining()) {
-				buffer.append(BYTE_CHAR_MAP[data.get() & 0xff]);
+			if (dataIndex < dataLength) {
+				int dataByte = data.get(dataStart + dataIndex) & 0xff;
+
+				buffer[hexIndex] = NIBBLE_HEX_MAP[dataByte >>> 4];
+				buffer[hexIndex + 1] = NIBBLE_HEX_MAP[dataByte & 0xf];
+				buffer[charIndex] = BYTE_CHAR_MAP[dataByte];
 			} else {
-				buffer.append(' ');
+				buffer[hexIndex] = ' ';
+				buffer[hexIndex + 1] = ' ';
+				buffer[charIndex] = ' ';
 			}
+			hexIndex += 3;
+			charIndex++;
+		}
+	}
+
+	private static void drawLine(GC gc, String line, int x, int y, Color background, Color foreground,
+			boolean useAlpha) {
+		gc.setBackground(background);
+		gc.setForeground(foreground);
+		if (useAlpha) {
+			gc.setAlpha(background.getAlpha());
+			gc.drawString(line, x, y, false);
+			gc.setAlpha(foreground.getAlpha());
+			gc.drawString(line, x, y, true);
+		} else {
+			gc.drawString(line, x, y, false);
 		}
 	}
 
+	private static void drawLineSelection(GC gc, Layout layout, String line, int start, int end, int x, int y,
+			Rectangle paintClipping, Color background, Color foreground, boolean useAlpha) {
+		if (start < end) {
+			int startX = x + lineOffsetX(gc, layout, line, start);
+			int endX = x + lineOffsetX(gc, layout, line, end);
+
+			gc.setClipping(paintClipping.intersection(new Rectangle(startX, y, endX - startX, layout.scrollUnitY)));
+			drawLine(gc, line, x, y, background, foreground, useAlpha);
+			gc.setClipping(paintClipping);
+		}
+	}
+
+	private static int lineOffsetX(GC gc, Layout layout, String line, int offset) {
+		// Only fall back to measuring the line prefix if the font is not fixed pitch
+		return (layout.fixedPitch ? offset * layout.scrollUnitX : gc.textExtent(line.substring(0, offset), SWT.NONE).x);
+	}
+
 	private static final String FONT_NAME_COURIER_NEW = "Courier New";
 	private static final String FONT_NAME_MONACO = "Monaco";
 
@@ -555,6 +597,7 @@ public class InputView extends Canvas implements DisposeListener, FocusListener,
 		final int originY;
 		final int scrollUnitX;
 		final int scrollUnitY;
+		final boolean fixedPitch;
 		boolean resized = true;
 
 		Layout(GC gc, String template) {
@@ -566,6 +609,9 @@ public class InputView extends Canvas implements DisposeListener, FocusListener,
 
 			this.scrollUnitX = (extent.x + extentUnits - 1) / extentUnits;
 			this.scrollUnitY = extent.y;
+			this.fixedPitch = extent.x == extentUnits * this.scrollUnitX
+					&& gc.textExtent(".", SWT.NONE).x == this.scrollUnitX
+					&& gc.textExtent("W", SWT.NONE).x == this.scrollUnitX;
 		}
 
 	}
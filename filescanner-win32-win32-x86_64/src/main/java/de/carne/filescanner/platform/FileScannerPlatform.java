@@ -16,6 +16,9 @@
  */
 package de.carne.filescanner.platform;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 /**
  * Utility class providing platform dependent functions.
  */
@@ -42,4 +45,16 @@ public final class FileScannerPlatform {
 		return height * 1.0f;
 	}
 
+	/**
+	 * Gets the platform specific base directory for user specific cache data.
+	 *
+	 * @return the platform specific base directory for user specific cache data.
+	 */
+	public static Path cacheDir() {
+		String localAppData = System.getenv("LOCALAPPDATA");
+
+		return (localAppData != null && localAppData.length() > 0 ? Paths.get(localAppData)
+				: Paths.get(System.getProperty("user.home"), "AppData", "Local"));
+	}
+
 }